@@ -0,0 +1,12 @@
+#!/bin/bash
+# Runs the JMH benchmarks and writes machine readable results to target/jmh/<git describe>.json
+# Extra arguments are passed to JMH e.g. ./bench.sh VetsHtml -p rows=1000 -f 1
+set -e
+cd "$(dirname "$0")"
+if [[ ! -f target/benchmarks.jar ]]; then
+  (cd .. && mvn -q install -Pbench -DskipTests=true)
+fi
+_id=$(git describe --tags --always --dirty 2>/dev/null || date +%Y%m%d%H%M%S)
+mkdir -p target/jmh
+java -jar target/benchmarks.jar -rf json -rff "target/jmh/$_id.json" "$@"
+echo "results: target/jmh/$_id.json"
@@ -0,0 +1,61 @@
+package com.adamgent.petclinic.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.Config.Property;
+import com.adamgent.petclinic.config.ConfigProvider;
+
+/**
+ * Property lookups against the real loaded config. <code>held</code> is the pattern the
+ * controllers use (resolve once, call get per request) and is the baseline for the rest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConfigBenchmark {
+
+	private Config config;
+
+	private Property<Integer> held;
+
+	@Setup
+	public void setup() {
+		config = ConfigProvider.get();
+		held = config.property("web.pageSize").map(Integer::parseInt);
+	}
+
+	@Benchmark
+	public String property() {
+		return config.property("web.executor").get();
+	}
+
+	@Benchmark
+	public String missing() {
+		return config.property("web.doesNotExist").orElse("");
+	}
+
+	@Benchmark
+	public int map() {
+		return config.property("web.pageSize").map(Integer::parseInt).get();
+	}
+
+	@Benchmark
+	public long mapChain() {
+		return config.property("web.pageSize").map(Integer::parseInt).map(Integer::longValue).map(i -> i * 2).get();
+	}
+
+	@Benchmark
+	public int held() {
+		return held.get();
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.adamgent.petclinic.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TCP proxy in front of the database that holds every chunk the application sends for a
+ * fixed delay before forwarding it. A query is one chunk so this adds roughly the delay
+ * to every round trip, which is what a slow or far away database looks like to the
+ * request threads: blocked but not busy.
+ */
+final class LatencyProxy implements AutoCloseable {
+
+	private final ServerSocket server;
+
+	private final String host;
+
+	private final int port;
+
+	private final long delayNanos;
+
+	private LatencyProxy(ServerSocket server, String host, int port, Duration delay) {
+		this.server = server;
+		this.host = host;
+		this.port = port;
+		this.delayNanos = delay.toNanos();
+	}
+
+	static LatencyProxy start(String host, int port, Duration delay) throws IOException {
+		ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		LatencyProxy proxy = new LatencyProxy(server, host, port, delay);
+		thread("latency-proxy", proxy::accept);
+		return proxy;
+	}
+
+	int port() {
+		return server.getLocalPort();
+	}
+
+	private void accept() {
+		while (!server.isClosed()) {
+			try {
+				Socket client = server.accept();
+				Socket db = new Socket(host, port);
+				client.setTcpNoDelay(true);
+				db.setTcpNoDelay(true);
+				thread("latency-proxy-up", () -> pump(client, db, delayNanos));
+				thread("latency-proxy-down", () -> pump(db, client, 0));
+			}
+			catch (IOException e) {
+				// closed
+			}
+		}
+	}
+
+	private static void pump(Socket from, Socket to, long delayNanos) {
+		byte[] buffer = new byte[16 * 1024];
+		try (from; to) {
+			InputStream in = from.getInputStream();
+			OutputStream out = to.getOutputStream();
+			int n;
+			while ((n = in.read(buffer)) > -1) {
+				if (delayNanos > 0) {
+					TimeUnit.NANOSECONDS.sleep(delayNanos);
+				}
+				out.write(buffer, 0, n);
+				out.flush();
+			}
+		}
+		catch (IOException e) {
+			// either side hung up
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void thread(String name, Runnable task) {
+		Thread t = new Thread(task, name);
+		t.setDaemon(true);
+		t.start();
+	}
+
+	@Override
+	public void close() throws IOException {
+		server.close();
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.adamgent.petclinic.bench;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The requests the load test can mix. Ids and names are drawn from the seed data in the
+ * petclinic-db migrations.
+ */
+enum LoadRequest {
+
+	vets {
+		@Override
+		HttpRequest create(URI base, RandomGenerator random) {
+			return get(base, "/vets");
+		}
+	},
+	ownerSearch {
+		@Override
+		HttpRequest create(URI base, RandomGenerator random) {
+			String prefix = LAST_NAMES.get(random.nextInt(LAST_NAMES.size()));
+			return get(base, "/owners?lastName=" + prefix.substring(0, 1 + random.nextInt(prefix.length())));
+		}
+	},
+	ownerDetails {
+		@Override
+		HttpRequest create(URI base, RandomGenerator random) {
+			return get(base, "/owners/" + PETS[random.nextInt(PETS.length)][0]);
+		}
+	},
+	createVisit {
+		@Override
+		HttpRequest create(URI base, RandomGenerator random) {
+			int[] pet = PETS[random.nextInt(PETS.length)];
+			return HttpRequest.newBuilder(base.resolve("/owners/" + pet[0] + "/pets/" + pet[1] + "/visits/new"))
+					.header("Content-Type", "application/x-www-form-urlencoded")
+					.POST(BodyPublishers.ofString("date=2026-01-01&description=load+test")).build();
+		}
+	};
+
+	private static final List<String> LAST_NAMES = List.of("Franklin", "Davis", "Rodriquez", "Escobito", "Schroeder",
+			"Black", "Coleman", "McTavish");
+
+	// owner id, pet id
+	private static final int[][] PETS = { { 1, 1 }, { 2, 2 }, { 3, 3 }, { 4, 5 }, { 5, 6 }, { 6, 7 }, { 7, 9 },
+			{ 8, 10 }, { 9, 11 }, { 10, 12 } };
+
+	abstract HttpRequest create(URI base, RandomGenerator random);
+
+	private static HttpRequest get(URI base, String path) {
+		return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+	}
+
+}
@@ -0,0 +1,342 @@
+package com.adamgent.petclinic.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.Application;
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.ConfigBootstrap;
+import com.adamgent.petclinic.config.flyway.FlywayConfig;
+import com.adamgent.petclinic.config.flyway.FlywayRunner;
+import com.adamgent.petclinic.config.jooby.LatencyHistogram;
+import com.adamgent.petclinic.config.sql.DataSourceConfig;
+
+/**
+ * Boots {@link Application} in process against a throwaway database and drives it with an
+ * open model: arrivals are Poisson at <code>load.rate</code> per second regardless of how
+ * fast responses come back. Latency is measured from the scheduled arrival time so a
+ * stalled server shows up as queueing delay instead of silently lowering the offered load
+ * (coordinated omission).
+ * <p>
+ * The throwaway database (<code>load.database</code>, default
+ * <code>petclinic_load</code>) is created next to the configured one, migrated and seeded
+ * by the petclinic-db Flyway scripts and dropped again at the end, so the visits the load
+ * creates never end up in the development database. The configured user needs the
+ * CREATEDB privilege. Read replicas are switched off as they would still point at the
+ * development database.
+ * <p>
+ * Settings (system properties, env or config files like everything else):
+ * <ul>
+ * <li><code>load.rate</code> arrivals per second, default 200</li>
+ * <li><code>load.warmup</code> seconds not recorded, default 10</li>
+ * <li><code>load.duration</code> seconds recorded, default 30</li>
+ * <li><code>load.mix</code> weights e.g. <code>vets:6,ownerSearch:2</code></li>
+ * <li><code>load.maxInFlight</code> requests outstanding before arrivals are dropped (and
+ * counted as errors), default 1000</li>
+ * <li><code>load.database</code> name of the throwaway database, default
+ * <code>petclinic_load</code>. It is dropped first if a previous run left it behind.</li>
+ * <li><code>load.report</code> JSON report path, default
+ * <code>target/load/report.json</code></li>
+ * <li><code>load.executors</code> comma separated <code>web.executor</code> modes (see
+ * VirtualThreadModule) to run one after the other with the same load, default the
+ * configured <code>web.executor</code></li>
+ * <li><code>load.dbDelay</code> milliseconds added to every database round trip by a
+ * {@link LatencyProxy}, default 0. With a delay the worker pool runs out of threads long
+ * before the connection pool runs out of connections which is where <code>virtual</code>
+ * should pull ahead.</li>
+ * </ul>
+ * Prints a table per executor and writes a JSON report with per executor and route count,
+ * throughput, error rate and latency percentiles (micros). Exits 1 if any request failed.
+ */
+public class LoadTest {
+
+	static final String DEFAULT_MIX = "vets:6,ownerSearch:2,ownerDetails:2,createVisit:1";
+
+	record Settings(double rate, Duration warmup, Duration duration, Map<LoadRequest, Integer> mix, int maxInFlight,
+			Path report, List<String> executors, Duration dbDelay, String database) {
+
+		static Settings of(Config config) {
+			return new Settings( //
+					config.property("load.rate").map(Double::parseDouble).orElse(200.0), //
+					Duration.ofSeconds(config.property("load.warmup").map(Long::parseLong).orElse(10L)), //
+					Duration.ofSeconds(config.property("load.duration").map(Long::parseLong).orElse(30L)), //
+					parseMix(config.property("load.mix").orElse(DEFAULT_MIX)), //
+					config.property("load.maxInFlight").map(Integer::parseInt).orElse(1000), //
+					Path.of(config.property("load.report").orElse("target/load/report.json")), //
+					List.of(config.property("load.executors").orElse(config.property("web.executor").get())
+							.split("\\s*,\\s*")), //
+					Duration.ofMillis(config.property("load.dbDelay").map(Long::parseLong).orElse(0L)), //
+					config.property("load.database").orElse("petclinic_load"));
+		}
+
+		static Map<LoadRequest, Integer> parseMix(String mix) {
+			Map<LoadRequest, Integer> m = new EnumMap<>(LoadRequest.class);
+			for (String part : mix.split(",")) {
+				String[] kv = part.trim().split(":");
+				m.put(LoadRequest.valueOf(kv[0].trim()), kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1);
+			}
+			return m;
+		}
+
+	}
+
+	static final class Stats {
+
+		final LatencyHistogram latency = new LatencyHistogram();
+
+		final LongAdder errors = new LongAdder();
+
+		final LongAdder dropped = new LongAdder();
+
+	}
+
+	/*
+	 * count and errors include dropped arrivals, the percentiles only completed requests.
+	 */
+	record Result(String executor, LoadRequest request, long count, long errors, long dropped, double throughput,
+			long p50, long p90, long p99, long p999, long max) {
+
+		double errorRate() {
+			return count == 0 ? 0 : (double) errors / count;
+		}
+
+	}
+
+	public static void main(String[] args) throws Exception {
+		System.setProperty("jooby.useShutdownHook", "false");
+		Config config = ConfigBootstrap.load("petclinic");
+		Settings settings = Settings.of(config);
+
+		DataSourceConfig dataSourceConfig = DataSourceConfig.of(config.asFunction().compose("database."::concat));
+		String database = settings.database();
+		String databaseUrl = url(dataSourceConfig.url(), database);
+		List<Result> results = new ArrayList<>();
+		try (var admin = dataSourceConfig.dataSource()) {
+			createDatabase(admin.get(), database);
+			try {
+				DataSourceConfig load = new DataSourceConfig(databaseUrl, dataSourceConfig.username(),
+						dataSourceConfig.password(), dataSourceConfig.driverClassName(), dataSourceConfig.retryCount(),
+						dataSourceConfig.retrySleep(), dataSourceConfig.initialSleep());
+				try (var ds = load.dataSource()) {
+					new FlywayRunner(new FlywayConfig(List.of("classpath:db/migration"), true, true)).run(ds.get());
+				}
+				try (LatencyProxy proxy = proxy(databaseUrl, settings.dbDelay())) {
+					for (String executor : settings.executors()) {
+						Map<String, String> overrides = new LinkedHashMap<>();
+						overrides.put("web.executor", executor);
+						overrides.put("database.url", proxy == null ? databaseUrl : url(databaseUrl, proxy.port()));
+						overrides.put("database.replicas.names", "");
+						Application app = Application.of(Config.builder().add(config.toMap()).add(overrides).build());
+						app.start();
+						try {
+							URI base = URI.create("http://localhost:" + app.getServerOptions().getPort());
+							List<Result> run = run(executor, base, settings);
+							System.out.printf(Locale.ROOT, "%nexecutor: %s, db delay: %d ms%n", executor,
+									settings.dbDelay().toMillis());
+							report(run, System.out);
+							results.addAll(run);
+						}
+						finally {
+							app.shutdown();
+						}
+					}
+				}
+			}
+			finally {
+				dropDatabase(admin.get(), database);
+			}
+		}
+		write(results, settings.report());
+		System.exit(results.stream().anyMatch(r -> r.errors() > 0) ? 1 : 0);
+	}
+
+	private static @Nullable LatencyProxy proxy(String jdbcUrl, Duration delay) throws IOException {
+		if (delay.isZero()) {
+			return null;
+		}
+		URI db = URI.create(jdbcUrl.substring("jdbc:".length()));
+		return LatencyProxy.start(db.getHost(), db.getPort() < 0 ? 5432 : db.getPort(), delay);
+	}
+
+	/*
+	 * CREATE and DROP DATABASE cannot run in a transaction, the pool hands out autocommit
+	 * connections.
+	 */
+	private static void createDatabase(DataSource ds, String database) throws SQLException {
+		dropDatabase(ds, database);
+		try (Connection c = ds.getConnection(); Statement s = c.createStatement()) {
+			s.execute("create database " + quote(database));
+		}
+	}
+
+	private static void dropDatabase(DataSource ds, String database) throws SQLException {
+		try (Connection c = ds.getConnection(); Statement s = c.createStatement()) {
+			s.execute("drop database if exists " + quote(database) + " with (force)");
+		}
+	}
+
+	private static String quote(String identifier) {
+		return "\"" + identifier.replace("\"", "\"\"") + "\"";
+	}
+
+	/*
+	 * The jdbc url pointing at another database on the same server.
+	 */
+	static String url(String jdbcUrl, String database) {
+		URI db = URI.create(jdbcUrl.substring("jdbc:".length()));
+		return "jdbc:" + uri(db, db.getHost(), db.getPort(), "/" + database);
+	}
+
+	/*
+	 * The jdbc url with the host and port swapped for the local proxy.
+	 */
+	static String url(String jdbcUrl, int port) {
+		URI db = URI.create(jdbcUrl.substring("jdbc:".length()));
+		return "jdbc:" + uri(db, "localhost", port, db.getPath());
+	}
+
+	private static URI uri(URI db, String host, int port, String path) {
+		try {
+			return new URI(db.getScheme(), db.getUserInfo(), host, port, path, db.getQuery(), db.getFragment());
+		}
+		catch (URISyntaxException e) {
+			throw new IllegalArgumentException(db.toString(), e);
+		}
+	}
+
+	static List<Result> run(String executor, URI base, Settings settings) throws InterruptedException {
+		HttpClient client = HttpClient.newBuilder()
+				.executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+				.connectTimeout(Duration.ofSeconds(5)).build();
+		LoadRequest[] wheel = wheel(settings.mix());
+		Map<LoadRequest, Stats> stats = new EnumMap<>(LoadRequest.class);
+		for (LoadRequest r : settings.mix().keySet()) {
+			stats.put(r, new Stats());
+		}
+		SplittableRandom random = new SplittableRandom(42);
+		Semaphore inFlight = new Semaphore(settings.maxInFlight());
+		LongAdder outstanding = new LongAdder();
+
+		long start = System.nanoTime();
+		long recordFrom = start + settings.warmup().toNanos();
+		long end = recordFrom + settings.duration().toNanos();
+		double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+		long arrival = start;
+		while (true) {
+			// exponential inter-arrival times give a Poisson process
+			arrival += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+			if (arrival >= end) {
+				break;
+			}
+			long wait = arrival - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			LoadRequest request = wheel[random.nextInt(wheel.length)];
+			boolean recorded = arrival >= recordFrom;
+			Stats s = stats.get(request);
+			if (!inFlight.tryAcquire()) {
+				if (recorded) {
+					s.dropped.increment();
+				}
+				continue;
+			}
+			long scheduled = arrival;
+			outstanding.increment();
+			client.sendAsync(request.create(base, random), BodyHandlers.discarding()).whenComplete((response, e) -> {
+				inFlight.release();
+				if (recorded) {
+					s.latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+					if (e != null || response.statusCode() >= 400) {
+						s.errors.increment();
+					}
+				}
+				outstanding.decrement();
+			});
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (outstanding.sum() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		double seconds = settings.duration().toNanos() / 1e9;
+		List<Result> results = new ArrayList<>();
+		for (var e : stats.entrySet()) {
+			LatencyHistogram h = e.getValue().latency;
+			long dropped = e.getValue().dropped.sum();
+			long count = h.count() + dropped;
+			results.add(new Result(executor, e.getKey(), count, e.getValue().errors.sum() + dropped, dropped,
+					h.count() / seconds, h.quantile(0.5), h.quantile(0.9), h.quantile(0.99), h.quantile(0.999),
+					h.quantile(1)));
+		}
+		return results;
+	}
+
+	private static LoadRequest[] wheel(Map<LoadRequest, Integer> mix) {
+		List<LoadRequest> wheel = new ArrayList<>();
+		mix.forEach((r, weight) -> {
+			for (int i = 0; i < weight; i++) {
+				wheel.add(r);
+			}
+		});
+		if (wheel.isEmpty()) {
+			throw new IllegalArgumentException("load.mix is empty");
+		}
+		return wheel.toArray(LoadRequest[]::new);
+	}
+
+	static void report(List<Result> results, PrintStream out) {
+		out.printf(Locale.ROOT, "%-14s %9s %9s %8s %8s %9s %9s %9s %9s %9s%n", "route", "count", "req/s", "errors",
+				"dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (Result r : results) {
+			out.printf(Locale.ROOT, "%-14s %9d %9.1f %7.2f%% %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", r.request(),
+					r.count(), r.throughput(), r.errorRate() * 100, r.dropped(), r.p50() / 1000.0, r.p90() / 1000.0,
+					r.p99() / 1000.0, r.p999() / 1000.0, r.max() / 1000.0);
+		}
+	}
+
+	static void write(List<Result> results, Path path) throws IOException {
+		if (path.getParent() != null) {
+			Files.createDirectories(path.getParent());
+		}
+		try (Writer w = Files.newBufferedWriter(path)) {
+			w.write("[\n");
+			for (int i = 0; i < results.size(); i++) {
+				Result r = results.get(i);
+				w.write(String.format(Locale.ROOT,
+						"  {\"executor\":\"%s\",\"route\":\"%s\",\"count\":%d,\"errors\":%d,\"dropped\":%d,\"errorRate\":%.6f,"
+								+ "\"throughput\":%.3f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"p999\":%d,\"max\":%d}%s%n",
+						r.executor(), r.request(), r.count(), r.errors(), r.dropped(), r.errorRate(), r.throughput(),
+						r.p50(), r.p90(), r.p99(), r.p999(), r.max(), i < results.size() - 1 ? "," : ""));
+			}
+			w.write("]\n");
+		}
+	}
+
+}
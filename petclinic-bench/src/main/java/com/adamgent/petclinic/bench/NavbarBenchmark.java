@@ -0,0 +1,69 @@
+package com.adamgent.petclinic.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.adamgent.petclinic.config.jooby.AssetManifest;
+import com.adamgent.petclinic.web.EncodedHtml;
+import com.adamgent.petclinic.web.MenuItem;
+import com.adamgent.petclinic.web.NavbarHtml;
+import com.adamgent.petclinic.web.NavbarHtmlRenderer;
+import com.adamgent.petclinic.web.VetsHtml;
+
+import io.jstach.jstachio.context.ContextNode;
+
+/**
+ * The layout lambdas on {@link com.adamgent.petclinic.web.Page}. <code>render</code> runs
+ * the navbar template and its <code>active</code> lambda, <code>navbar</code> is the
+ * cached lookup pages actually use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NavbarBenchmark {
+
+	private final NavbarHtmlRenderer renderer = NavbarHtmlRenderer.of();
+
+	private NavbarHtml navbar;
+
+	private VetsHtml page;
+
+	private ContextNode assets;
+
+	@Setup
+	public void setup() {
+		navbar = new NavbarHtml(MenuItem.vets);
+		page = new VetsHtml(List.of(), null, null);
+		assets = ContextNode
+				.ofRoot(AssetManifest.of(NavbarBenchmark.class.getClassLoader()).mount("/static/", "static/"));
+	}
+
+	@Benchmark
+	public String render() {
+		return renderer.execute(navbar);
+	}
+
+	@Benchmark
+	public boolean active() {
+		return navbar.active(MenuItem.home);
+	}
+
+	@Benchmark
+	public EncodedHtml navbar() {
+		return page.navbar();
+	}
+
+	@Benchmark
+	public String asset() {
+		return page.asset("/static/resources/css/petclinic.css", assets);
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.adamgent.petclinic.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.ConfigProvider;
+import com.adamgent.petclinic.repo.Slice;
+import com.adamgent.petclinic.repo.Vet;
+import com.adamgent.petclinic.repo.VetRepository;
+
+import io.avaje.inject.BeanScope;
+
+/**
+ * Doma query and entity mapping of {@link Vet} against the configured (local) database,
+ * the same one the repository tests use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VetMappingBenchmark {
+
+	private BeanScope beanScope;
+
+	private VetRepository vetRepository;
+
+	@Setup
+	public void setup() {
+		Config config = ConfigProvider.get();
+		beanScope = BeanScope.builder().bean(Config.class, config).build();
+		vetRepository = beanScope.get(VetRepository.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		beanScope.close();
+	}
+
+	@Benchmark
+	public List<Vet> findAll() {
+		return vetRepository.findAll();
+	}
+
+	@Benchmark
+	public Slice<Vet> findPage() {
+		return vetRepository.findPage(null, 5);
+	}
+
+}
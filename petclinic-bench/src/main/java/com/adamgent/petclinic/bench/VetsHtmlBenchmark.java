@@ -0,0 +1,76 @@
+package com.adamgent.petclinic.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.adamgent.petclinic.config.jooby.AssetManifest;
+import com.adamgent.petclinic.repo.Specialties;
+import com.adamgent.petclinic.repo.Vet;
+import com.adamgent.petclinic.web.VetsHtml;
+import com.adamgent.petclinic.web.VetsHtmlRenderer;
+
+import io.jstach.jstachio.Output;
+import io.jstach.jstachio.context.ContextNode;
+
+/**
+ * Renders the vets page to UTF-8 bytes (what the response sees) and to a String for
+ * comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VetsHtmlBenchmark {
+
+	@Param({ "10", "1000", "100000" })
+	public int rows;
+
+	private final VetsHtmlRenderer renderer = VetsHtmlRenderer.of();
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+	// same @context the application renders with so asset urls are resolved
+	private final ContextNode context = ContextNode.of(Map.of("assets",
+			AssetManifest.of(VetsHtmlBenchmark.class.getClassLoader()).mount("/static/", "static/"))::get);
+
+	private VetsHtml page;
+
+	@Setup
+	public void setup() {
+		List<Vet> vets = new ArrayList<>(rows);
+		Specialties[] specialties = { new Specialties(List.of()), new Specialties(List.of("radiology")),
+				new Specialties(List.of("dentistry", "surgery")) };
+		for (int i = 0; i < rows; i++) {
+			vets.add(new Vet(i, "First" + i, "Last & <" + i + ">", specialties[i % specialties.length]));
+		}
+		page = new VetsHtml(vets, "bmV4dA", "cHJldg");
+	}
+
+	@Benchmark
+	public int bytes() throws IOException {
+		out.reset();
+		renderer.write(page, context, Output.EncodedOutput.of(out, StandardCharsets.UTF_8));
+		return out.size();
+	}
+
+	@Benchmark
+	public String string() {
+		StringBuilder sb = new StringBuilder();
+		renderer.execute(page, context, Output.of(sb));
+		return sb.toString();
+	}
+
+}
@@ -12,7 +12,10 @@ import java.util.Map;
 
 import com.adamgent.petclinic.config.flyway.FlywayConfig;
 import com.adamgent.petclinic.config.flyway.FlywayRunner;
+import com.adamgent.petclinic.config.jooby.AssetCompressor;
+import com.adamgent.petclinic.config.jooby.BuildId;
 import com.adamgent.petclinic.config.jooq.JooqRunner;
+import com.adamgent.petclinic.config.sql.CsvImport;
 import com.adamgent.petclinic.config.sql.DataSourceConfig;
 
 public class Main {
@@ -21,7 +24,7 @@ public class Main {
 
 	public enum Command {
 
-		SHOW, PROPERTIES, ENV, VALIDATE, MIGRATE, JOOQ
+		SHOW, PROPERTIES, ENV, VALIDATE, MIGRATE, JOOQ, COMPRESS, BUILD_ID, IMPORT
 
 	}
 
@@ -136,6 +139,26 @@ public class Main {
 				out.println(JooqRunner.toXmlConfig(dataSourceConfig, cwd));
 				JooqRunner.run(dataSourceConfig, cwd);
 			}
+			case COMPRESS -> {
+				ClassLoader loader = Thread.currentThread().getContextClassLoader();
+				AssetCompressor.run(loader, List.of("static", "META-INF/resources/webjars"),
+						cwd.resolve("target/classes"));
+			}
+			case BUILD_ID -> {
+				out.println(BuildId.write(cwd.resolve("target/classes")));
+			}
+			case IMPORT -> {
+				// the directory arg has owners.csv and pets.csv
+				var logger = System.getLogger(CsvImport.class.getName());
+				var csvImport = CsvImport
+						.of((step, count) -> logger.log(System.Logger.Level.INFO, "Import " + step + ": " + count));
+				try (var ds = dataSourceConfig.dataSource();
+						var c = ds.get().getConnection();
+						var owners = Files.newInputStream(cwd.resolve("owners.csv"));
+						var pets = Files.newInputStream(cwd.resolve("pets.csv"))) {
+					out.println(csvImport.run(c, owners, pets));
+				}
+			}
 		}
 	}
 
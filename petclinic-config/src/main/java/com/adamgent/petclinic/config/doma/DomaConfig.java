@@ -2,9 +2,14 @@ package com.adamgent.petclinic.config.doma;
 
 import javax.sql.DataSource;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.seasar.doma.jdbc.Naming;
 import org.seasar.doma.jdbc.dialect.Dialect;
 import org.seasar.doma.jdbc.dialect.PostgresDialect;
+import org.seasar.doma.jdbc.tx.LocalTransaction;
+import org.seasar.doma.jdbc.tx.LocalTransactionDataSource;
+import org.seasar.doma.jdbc.tx.LocalTransactionManager;
+import org.seasar.doma.jdbc.tx.TransactionManager;
 
 @SuppressWarnings("exports")
 public class DomaConfig implements org.seasar.doma.jdbc.Config {
@@ -13,14 +18,27 @@ public class DomaConfig implements org.seasar.doma.jdbc.Config {
 
 	private final Dialect dialect;
 
+	private final @Nullable LocalTransactionManager transactionManager;
+
 	public static DomaConfig of(DataSource dataSource) {
-		return new DomaConfig(dataSource, new PostgresDialect());
+		return new DomaConfig(dataSource, new PostgresDialect(), null);
 	}
 
-	DomaConfig(DataSource dataSource, Dialect dialect) {
+	DomaConfig(DataSource dataSource, Dialect dialect, @Nullable LocalTransactionManager transactionManager) {
 		super();
 		this.dataSource = dataSource;
 		this.dialect = dialect;
+		this.transactionManager = transactionManager;
+	}
+
+	/**
+	 * A config for DAOs that run inside {@link #getTransactionManager()} transactions.
+	 * DAOs created with it fail outside of a transaction so it is not meant to be a bean.
+	 * @return new config on the same pool.
+	 */
+	public DomaConfig withLocalTransactions() {
+		var tx = new LocalTransactionDataSource(dataSource);
+		return new DomaConfig(tx, dialect, new LocalTransactionManager(tx, getJdbcLogger()));
 	}
 
 	@Override
@@ -38,4 +56,26 @@ public class DomaConfig implements org.seasar.doma.jdbc.Config {
 		return Naming.SNAKE_LOWER_CASE;
 	}
 
+	@Override
+	public TransactionManager getTransactionManager() {
+		return localTransactionManager();
+	}
+
+	/**
+	 * The thread bound transaction for when begin and end cannot be one block (e.g. a
+	 * cursor that lives for a render).
+	 * @return transaction of {@link #getTransactionManager()}.
+	 */
+	public LocalTransaction getLocalTransaction() {
+		return localTransactionManager().getTransaction();
+	}
+
+	private LocalTransactionManager localTransactionManager() {
+		var tm = transactionManager;
+		if (tm == null) {
+			throw new UnsupportedOperationException("use withLocalTransactions()");
+		}
+		return tm;
+	}
+
 }
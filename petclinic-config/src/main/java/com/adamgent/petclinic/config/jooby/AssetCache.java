@@ -0,0 +1,220 @@
+package com.adamgent.petclinic.config.jooby;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import io.jooby.MediaType;
+import io.jooby.handler.Asset;
+
+/**
+ * Keeps classpath assets off heap so they are resolved and read from the jar only once.
+ * Small files are copied into direct buffers and files of at least
+ * <code>mmapThreshold</code> bytes are extracted to a temp file and memory mapped. Either
+ * way the buffer is handed to the server as is.
+ * <p>
+ * The cache is bounded by <code>maxBytes</code>. The set of assets is fixed so there is
+ * no eviction: once the budget is spent further assets are just streamed as before.
+ * <p>
+ * Lookups that found nothing (e.g. the <code>.br</code> sibling the build did not
+ * produce) are remembered too so they are not resolved again on every request.
+ */
+@SuppressWarnings("exports")
+public final class AssetCache {
+
+	private static final System.Logger logger = System.getLogger(AssetCache.class.getName());
+
+	private final long maxBytes;
+
+	private final int mmapThreshold;
+
+	private final AtomicLong used = new AtomicLong();
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final Set<String> missing = ConcurrentHashMap.newKeySet();
+
+	private volatile @Nullable Path directory;
+
+	/**
+	 * A cached asset with its response headers already rendered.
+	 * @param modified last modified in epoch millis for If-Modified-Since.
+	 */
+	public record Entry(ByteBuffer buffer, MediaType type, String etag, String lastModified, long modified) {
+
+		public long length() {
+			return buffer.remaining();
+		}
+
+		/**
+		 * @return a view for one response. Does not copy.
+		 */
+		public ByteBuffer body() {
+			return buffer.duplicate();
+		}
+
+	}
+
+	AssetCache(long maxBytes, int mmapThreshold) {
+		this.maxBytes = maxBytes;
+		this.mmapThreshold = mmapThreshold;
+	}
+
+	public static AssetCache of(long maxBytes, int mmapThreshold) {
+		return new AssetCache(maxBytes, mmapThreshold);
+	}
+
+	public static AssetCache of(Function<String, String> properties) {
+		long maxBytes = properties.andThen(Long::parseLong).apply("maxBytes");
+		int mmapThreshold = properties.andThen(Integer::parseInt).apply("mmapThreshold");
+		return of(maxBytes, mmapThreshold);
+	}
+
+	public @Nullable Entry get(String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * @return true if {@link #missing(String)} was recorded for the key.
+	 */
+	public boolean isMissing(String key) {
+		return missing.contains(key);
+	}
+
+	/**
+	 * Records that there is no asset for the key. Callers should only do so for keys
+	 * derived from assets that exist so the set stays bounded by the real assets.
+	 */
+	public void missing(String key) {
+		missing.add(key);
+	}
+
+	/**
+	 * Caches the asset if it fits.
+	 * @return the entry or null if the budget is spent in which case the asset has not
+	 * been read.
+	 */
+	public @Nullable Entry load(String key, Asset asset, MediaType type) {
+		Entry existing = entries.get(key);
+		if (existing != null) {
+			return existing;
+		}
+		long size = asset.getSize();
+		if (size < 0 || size > Integer.MAX_VALUE || !reserve(size)) {
+			return null;
+		}
+		Path file = null;
+		try {
+			ByteBuffer buffer;
+			if (size >= mmapThreshold) {
+				file = extract(asset);
+				buffer = map(key, file);
+			}
+			else {
+				buffer = copy(asset, (int) size);
+			}
+			String lastModified = DateTimeFormatter.RFC_1123_DATE_TIME
+					.format(Instant.ofEpochMilli(asset.getLastModified()).atOffset(ZoneOffset.UTC));
+			Entry entry = new Entry(buffer.asReadOnlyBuffer(), type, asset.getEtag(), lastModified,
+					asset.getLastModified());
+			Entry race = entries.putIfAbsent(key, entry);
+			if (race != null) {
+				// another thread loaded it first
+				used.addAndGet(-size);
+				delete(file);
+				return race;
+			}
+			return entry;
+		}
+		catch (IOException e) {
+			used.addAndGet(-size);
+			delete(file);
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private boolean reserve(long size) {
+		long current;
+		do {
+			current = used.get();
+			if (current + size > maxBytes) {
+				return false;
+			}
+		}
+		while (!used.compareAndSet(current, current + size));
+		return true;
+	}
+
+	private static ByteBuffer copy(Asset asset, int size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+		try (InputStream in = asset.stream()) {
+			buffer.put(in.readNBytes(size));
+		}
+		return buffer.flip();
+	}
+
+	private Path extract(Asset asset) throws IOException {
+		Path file = Files.createTempFile(directory(), "asset", null);
+		file.toFile().deleteOnExit();
+		try (InputStream in = asset.stream()) {
+			Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		return file;
+	}
+
+	private static ByteBuffer map(String key, Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			logger.log(Level.DEBUG, "Memory mapping asset: " + key);
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/*
+	 * Unlinking a mapped file is fine on POSIX. Where it is not (Windows) deleteOnExit is
+	 * the fallback.
+	 */
+	private static void delete(@Nullable Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (IOException e) {
+			logger.log(Level.DEBUG, "Could not delete asset file: " + file, e);
+		}
+	}
+
+	private Path directory() throws IOException {
+		Path d = directory;
+		if (d == null) {
+			synchronized (this) {
+				d = directory;
+				if (d == null) {
+					d = Files.createTempDirectory("petclinic-assets");
+					d.toFile().deleteOnExit();
+					directory = d;
+				}
+			}
+		}
+		return d;
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.adamgent.petclinic.config.jooby;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.System.Logger.Level;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build step that writes <code>.gz</code> siblings of text like classpath assets (css,
+ * js, svg, fonts) into the output directory under the same resource path so that
+ * {@link PrecompressedAssetHandler} can find them with the same {@link ClassLoader}.
+ * <p>
+ * The JDK has no brotli encoder so <code>.br</code> files are not produced here but are
+ * served if something else (e.g. the brotli CLI) puts them next to the original.
+ */
+public final class AssetCompressor {
+
+	private static final System.Logger logger = System.getLogger(AssetCompressor.class.getName());
+
+	private static final Set<String> extensions = Set.of("css", "js", "map", "svg", "ttf", "eot", "otf", "json", "txt",
+			"html");
+
+	private AssetCompressor() {
+	}
+
+	public static void run(ClassLoader loader, List<String> roots, Path output) throws IOException {
+		for (String root : roots) {
+			for (URL url : Collections.list(loader.getResources(root))) {
+				compress(url, root, output);
+			}
+		}
+	}
+
+	private static void compress(URL url, String root, Path output) throws IOException {
+		URI uri = toURI(url);
+		if (uri.getScheme().equals("jar")) {
+			String s = uri.toString();
+			URI jar = URI.create(s.substring("jar:".length(), s.indexOf("!/")));
+			try (FileSystem fs = FileSystems.newFileSystem(Path.of(jar), (ClassLoader) null)) {
+				compress(fs.getPath(root), output.resolve(root));
+			}
+		}
+		else if (uri.getScheme().equals("file")) {
+			compress(Path.of(uri), output.resolve(root));
+		}
+	}
+
+	private static void compress(Path source, Path target) throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (Stream<Path> s = Files.walk(source)) {
+			s.filter(Files::isRegularFile).filter(AssetCompressor::compressible).forEach(files::add);
+		}
+		int count = 0;
+		for (Path file : files) {
+			Path out = target.resolve(source.relativize(file).toString() + ".gz");
+			if (Files.exists(out) && Files.getLastModifiedTime(out).compareTo(Files.getLastModifiedTime(file)) >= 0) {
+				continue;
+			}
+			byte[] raw = Files.readAllBytes(file);
+			byte[] gz = gzip(raw);
+			// not worth a Content-Encoding
+			if (gz.length >= raw.length * 0.9) {
+				continue;
+			}
+			Files.createDirectories(out.getParent());
+			Files.write(out, gz);
+			count++;
+		}
+		logger.log(Level.INFO, "Compressed " + count + " of " + files.size() + " assets from " + source.toUri());
+	}
+
+	private static boolean compressible(Path p) {
+		String name = p.getFileName().toString();
+		int i = name.lastIndexOf('.');
+		return i > 0 && extensions.contains(name.substring(i + 1).toLowerCase(Locale.ROOT));
+	}
+
+	private static byte[] gzip(byte[] raw) throws IOException {
+		var bytes = new ByteArrayOutputStream(raw.length / 2);
+		try (OutputStream out = new GZIPOutputStream(bytes) {
+			{
+				def.setLevel(Deflater.BEST_COMPRESSION);
+			}
+		}) {
+			out.write(raw);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static URI toURI(URL url) {
+		try {
+			return url.toURI();
+		}
+		catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.adamgent.petclinic.config.jooby;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Maps logical asset URLs (e.g. <code>/static/resources/css/petclinic.css</code>) to
+ * content hashed URLs (<code>/static/resources/css/petclinic.0123456789.css</code>).
+ * <p>
+ * The hash goes in the file name rather than a directory so relative urls inside
+ * stylesheets still resolve. Hashes are computed lazily from the classpath resource
+ * behind each mounted URL prefix and cached for the life of the process.
+ */
+public final class AssetManifest {
+
+	private static final int HASH_LENGTH = 10;
+
+	private static final Pattern FINGERPRINT = Pattern.compile("^(.*)\\.([0-9a-f]{" + HASH_LENGTH + "})(\\.[^./]+)?$");
+
+	private final ClassLoader loader;
+
+	private final Map<String, String> mounts = new ConcurrentHashMap<>();
+
+	private final Map<String, Optional<String>> hashes = new ConcurrentHashMap<>();
+
+	private AssetManifest(ClassLoader loader) {
+		this.loader = loader;
+	}
+
+	public static AssetManifest of(ClassLoader loader) {
+		return new AssetManifest(loader);
+	}
+
+	public ClassLoader loader() {
+		return loader;
+	}
+
+	/**
+	 * Registers a URL prefix served from a classpath resource prefix.
+	 * @param urlPrefix e.g. <code>/static/</code>
+	 * @param resourcePrefix e.g. <code>static/</code>
+	 * @return this
+	 */
+	public AssetManifest mount(String urlPrefix, String resourcePrefix) {
+		mounts.put(slash(urlPrefix), slash(resourcePrefix));
+		return this;
+	}
+
+	/**
+	 * @param path logical URL path.
+	 * @return the fingerprinted URL or the path unchanged if it is not a known asset.
+	 */
+	public String url(String path) {
+		String hash = hash(path);
+		if (hash == null) {
+			return path;
+		}
+		int slash = path.lastIndexOf('/');
+		int dot = path.lastIndexOf('.');
+		if (dot <= slash + 1) {
+			return path + "." + hash;
+		}
+		return path.substring(0, dot) + "." + hash + path.substring(dot);
+	}
+
+	public @Nullable String hash(String path) {
+		return hashes.computeIfAbsent(path, p -> Optional.ofNullable(digest(p))).orElse(null);
+	}
+
+	private @Nullable String digest(String path) {
+		String resource = resource(path);
+		if (resource == null) {
+			return null;
+		}
+		try (InputStream in = loader.getResourceAsStream(resource)) {
+			if (in == null) {
+				return null;
+			}
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) > -1) {
+				md.update(buffer, 0, n);
+			}
+			return HexFormat.of().formatHex(md.digest()).substring(0, HASH_LENGTH);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private @Nullable String resource(String path) {
+		String match = null;
+		for (String prefix : mounts.keySet()) {
+			if (path.startsWith(prefix) && (match == null || prefix.length() > match.length())) {
+				match = prefix;
+			}
+		}
+		if (match == null) {
+			return null;
+		}
+		String resource = mounts.get(match) + path.substring(match.length());
+		return resource.startsWith("/") ? resource.substring(1) : resource;
+	}
+
+	private static String slash(String prefix) {
+		return prefix.endsWith("/") ? prefix : prefix + "/";
+	}
+
+	/**
+	 * A path with the content hash removed.
+	 */
+	record Fingerprint(String path, String hash) {
+
+		static @Nullable Fingerprint parse(String path) {
+			Matcher m = FINGERPRINT.matcher(path);
+			if (!m.matches()) {
+				return null;
+			}
+			String ext = m.group(3);
+			return new Fingerprint(m.group(1) + (ext == null ? "" : ext), m.group(2));
+		}
+
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.adamgent.petclinic.config.jooby;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Identifies a build by a hash of its compiled output: classes (including generated
+ * template renderers) and classpath assets. Two builds of the same source agree so every
+ * instance of a release reports the same id, and any change to a template or asset
+ * changes it.
+ * <p>
+ * {@link #write(Path)} is a build step run after compilation. {@link #read(ClassLoader)}
+ * falls back to an id unique to the process when the build step did not run (e.g. an IDE)
+ * so stale validators are never reused across a restart.
+ */
+public final class BuildId {
+
+	static final String RESOURCE = "META-INF/petclinic/build-id";
+
+	private static final int HASH_LENGTH = 10;
+
+	private BuildId() {
+	}
+
+	/**
+	 * Hashes every file under the output directory and writes the id as a resource.
+	 * @param output e.g. <code>target/classes</code>
+	 * @return the id.
+	 * @throws IOException if the output cannot be read or written.
+	 */
+	public static String write(Path output) throws IOException {
+		Path target = output.resolve(RESOURCE);
+		List<Path> files;
+		try (Stream<Path> s = Files.walk(output)) {
+			files = s.filter(Files::isRegularFile).filter(f -> !f.equals(target)).sorted().toList();
+		}
+		MessageDigest md = sha256();
+		for (Path file : files) {
+			md.update(output.relativize(file).toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+			md.update(Files.readAllBytes(file));
+		}
+		String id = HexFormat.of().formatHex(md.digest()).substring(0, HASH_LENGTH);
+		Files.createDirectories(target.getParent());
+		Files.writeString(target, id, StandardCharsets.UTF_8);
+		return id;
+	}
+
+	/**
+	 * @param loader the application class loader.
+	 * @return the id written by {@link #write(Path)} or one unique to this process.
+	 */
+	public static String read(ClassLoader loader) {
+		try (InputStream in = loader.getResourceAsStream(RESOURCE)) {
+			if (in == null) {
+				return Long.toString(System.currentTimeMillis(), 36);
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.adamgent.petclinic.config.jooby;
+
+import java.lang.System.Logger.Level;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import io.jooby.Extension;
+import io.jooby.Jooby;
+import io.jooby.Server;
+import io.jooby.StatusCode;
+
+/**
+ * Drain based shutdown.
+ * <ol>
+ * <li>New requests (the readiness check included) get a 503 with
+ * <code>Connection: close</code> so the load balancer moves on. The listener itself stays
+ * open: Jooby's {@link Server} can only stop the acceptor and the live connections
+ * together.</li>
+ * <li>In flight requests are given until the timeout to finish.</li>
+ * <li>The server is stopped which runs the application stop callbacks e.g. closing the
+ * bean scope (and its pool) in reverse dependency order.</li>
+ * </ol>
+ * Jooby's own shutdown hook stops the server straight away so it should be disabled with
+ * <code>jooby.useShutdownHook=false</code> and {@link #hook(Server)} used instead.
+ */
+@SuppressWarnings("exports")
+public class GracefulShutdown implements Extension {
+
+	private static final System.Logger logger = System.getLogger(GracefulShutdown.class.getName());
+
+	private final Duration timeout;
+
+	private final LongSupplier inFlight;
+
+	private final AtomicBoolean stopping = new AtomicBoolean();
+
+	private volatile boolean draining;
+
+	GracefulShutdown(Duration timeout, LongSupplier inFlight) {
+		super();
+		this.timeout = timeout;
+		this.inFlight = inFlight;
+	}
+
+	/**
+	 * @param timeout how long to wait for in flight requests.
+	 * @param inFlight requests in flight e.g. {@link RouteMetrics#inFlight()}.
+	 * @return extension to install before the routes.
+	 */
+	public static GracefulShutdown of(Duration timeout, LongSupplier inFlight) {
+		return new GracefulShutdown(timeout, inFlight);
+	}
+
+	@Override
+	public void install(Jooby application) throws Exception {
+		application.use(next -> ctx -> {
+			if (draining) {
+				ctx.setResponseHeader("Connection", "close");
+				return ctx.send(StatusCode.SERVICE_UNAVAILABLE);
+			}
+			return next.apply(ctx);
+		});
+	}
+
+	public boolean isDraining() {
+		return draining;
+	}
+
+	public Thread hook(Server server) {
+		return new Thread(() -> shutdown(server), "graceful-shutdown");
+	}
+
+	/**
+	 * Drains and stops the server. Only the first call does anything.
+	 */
+	public void shutdown(Server server) {
+		if (!stopping.compareAndSet(false, true)) {
+			return;
+		}
+		draining = true;
+		long deadline = System.nanoTime() + timeout.toNanos();
+		logger.log(Level.INFO, "Draining " + inFlight.getAsLong() + " in flight requests. timeout: " + timeout);
+		try {
+			while (inFlight.getAsLong() > 0 && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		long remaining = inFlight.getAsLong();
+		if (remaining > 0) {
+			logger.log(Level.WARNING, "Drain timed out with " + remaining + " requests in flight");
+		}
+		server.stop();
+		logger.log(Level.INFO, "Stopped");
+	}
+
+}
@@ -0,0 +1,187 @@
+package com.adamgent.petclinic.config.jooby;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import io.jooby.Context;
+import io.jooby.Extension;
+import io.jooby.Jooby;
+import io.jooby.MediaType;
+import io.jooby.ResultHandler;
+import io.jooby.Route;
+import io.jstach.jstachio.JStachio;
+import io.jstach.jstachio.Output;
+import io.jstach.jstachio.Template;
+import io.jstach.jstachio.context.ContextNode;
+import io.jstach.jstachio.context.ContextTemplate;
+import io.jstach.jstachio.output.ThresholdEncodedOutput.OutputStreamThresholdEncodedOutput;
+
+/**
+ * Renders JStachio models directly into the response instead of producing a String or
+ * byte array first.
+ * <p>
+ * Output is buffered up to the threshold so small pages still get a Content-Length and a
+ * failed render can still become a proper error page. Once the threshold is crossed the
+ * buffer is flushed to {@link Context#responseStream()} (pooled, chunked buffers on
+ * netty) and the rest of the template streams as it renders.
+ * <p>
+ * An optional selector can swap the model for another one (e.g. a fragment of the page)
+ * based on the request before the template is looked up.
+ * <p>
+ * A route result that is {@link AutoCloseable} (e.g. holds a database cursor the template
+ * iterates) is closed once rendering is done, on the rendering thread.
+ * <p>
+ * Result handlers run after the whole filter chain has returned. Applications whose
+ * filters must also wrap rendering (e.g. a read only database scope that a template
+ * iterating a cursor runs in) use {@link #filter()} as the innermost filter.
+ * <p>
+ * Application wide template values (e.g. the {@link AssetManifest}) are bound to
+ * <code>@context</code> instead of being carried by every model.
+ */
+@SuppressWarnings("exports")
+public class JStachioStreamModule implements Extension {
+
+	/**
+	 * Context attribute holding a <code>Consumer&lt;byte[]&gt;</code>. When set the page
+	 * is rendered fully to bytes and passed to the consumer (e.g. a response cache)
+	 * before being sent.
+	 */
+	public static final String CAPTURE = JStachioStreamModule.class.getName() + ".capture";
+
+	private final JStachio jstachio;
+
+	private final int threshold;
+
+	private final BiFunction<Context, Object, Object> selector;
+
+	private final ContextNode context;
+
+	JStachioStreamModule(JStachio jstachio, int threshold, BiFunction<Context, Object, Object> selector,
+			ContextNode context) {
+		super();
+		this.jstachio = jstachio;
+		this.threshold = threshold;
+		this.selector = selector;
+		this.context = context;
+	}
+
+	public static JStachioStreamModule of(int threshold) {
+		return of(threshold, (ctx, model) -> model, Map.of());
+	}
+
+	/**
+	 * @param threshold bytes buffered before streaming.
+	 * @param selector given the request and the route result returns the model to render.
+	 * @param context values templates can reach as <code>@context.name</code>.
+	 * @return module.
+	 */
+	public static JStachioStreamModule of(int threshold, BiFunction<Context, Object, Object> selector,
+			Map<String, ?> context) {
+		return new JStachioStreamModule(JStachio.of(), threshold, selector, ContextNode.of(context::get));
+	}
+
+	@Override
+	public void install(Jooby application) throws Exception {
+		application.resultHandler(new StreamResultHandler());
+	}
+
+	/**
+	 * Renders template results inside the filter chain. Filters used before this one wrap
+	 * the render as well as the route. Other results pass through.
+	 * @return filter to use after all the filters that should see rendering.
+	 */
+	public Route.Filter filter() {
+		return next -> ctx -> {
+			Object result = next.apply(ctx);
+			if (result == null || !jstachio.supportsType(result.getClass())) {
+				return result;
+			}
+			return renderAndClose(ctx, result);
+		};
+	}
+
+	private Object renderAndClose(Context ctx, Object result) throws Exception {
+		if (result instanceof AutoCloseable resource) {
+			try (resource) {
+				return render(ctx, result);
+			}
+		}
+		return render(ctx, result);
+	}
+
+	private Object render(Context ctx, Object result) throws Exception {
+		if (ctx.isResponseStarted()) {
+			return result;
+		}
+		Object model = selector.apply(ctx, result);
+		Template<Object> found = jstachio.findTemplate(model);
+		ContextTemplate<Object> template = ContextTemplate.of(found);
+		Charset charset = found.templateCharset();
+		ctx.setResponseType(MediaType.valueOf(found.templateMediaType()), charset);
+		Consumer<byte[]> capture = ctx.getAttribute(CAPTURE);
+		if (capture != null) {
+			var bytes = new ByteArrayOutputStream(threshold);
+			template.write(model, context, Output.EncodedOutput.of(bytes, charset));
+			byte[] body = bytes.toByteArray();
+			capture.accept(body);
+			return ctx.send(body);
+		}
+		try (var out = new ContextOutput(ctx, charset, threshold)) {
+			template.write(model, context, out);
+		}
+		return ctx;
+	}
+
+	private class StreamResultHandler implements ResultHandler {
+
+		@Override
+		public boolean matches(Type type) {
+			return type instanceof Class<?> c && jstachio.supportsType(c);
+		}
+
+		@Override
+		public boolean isReactive() {
+			return false;
+		}
+
+		/*
+		 * Already rendered (and closed) by filter() when that is in the chain: the result
+		 * is then the Context and the response has started.
+		 */
+		@Override
+		public Route.Filter create() {
+			return next -> ctx -> renderAndClose(ctx, next.apply(ctx));
+		}
+
+	}
+
+	private static final class ContextOutput extends OutputStreamThresholdEncodedOutput {
+
+		private final Context ctx;
+
+		ContextOutput(Context ctx, Charset charset, int limit) {
+			super(charset, limit);
+			this.ctx = ctx;
+		}
+
+		/*
+		 * Called with the total size if everything fit in the buffer otherwise with -1 as
+		 * soon as the threshold is exceeded.
+		 */
+		@Override
+		protected OutputStream createConsumer(int size) throws IOException {
+			if (size > -1) {
+				ctx.setResponseLength(size);
+			}
+			return ctx.responseStream();
+		}
+
+	}
+
+}
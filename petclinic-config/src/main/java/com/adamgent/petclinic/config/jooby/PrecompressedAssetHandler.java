@@ -0,0 +1,235 @@
+package com.adamgent.petclinic.config.jooby;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.config.jooby.AssetManifest.Fingerprint;
+
+import io.jooby.Context;
+import io.jooby.MediaType;
+import io.jooby.Route;
+import io.jooby.StatusCode;
+import io.jooby.exception.StatusCodeException;
+import io.jooby.handler.Asset;
+import io.jooby.handler.AssetSource;
+
+/**
+ * Serves classpath assets.
+ * <ul>
+ * <li>A <code>.br</code> or <code>.gz</code> sibling of the requested asset is sent when
+ * the client accepts it so that nothing is compressed per request.</li>
+ * <li>Fingerprinted URLs (see {@link AssetManifest}) are mapped back to the real file and
+ * if the hash is current are cached by the browser forever.</li>
+ * <li>With an {@link AssetCache} the bytes and headers are served from memory after the
+ * first hit.</li>
+ * <li>If-None-Match and If-Modified-Since are answered with 304 as Jooby's AssetHandler
+ * does.</li>
+ * </ul>
+ *
+ * @see AssetCompressor
+ */
+@SuppressWarnings("exports")
+public class PrecompressedAssetHandler implements Route.Handler {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+	enum Encoding {
+
+		BR("br", ".br"), GZIP("gzip", ".gz");
+
+		final String token;
+
+		final String extension;
+
+		private Encoding(String token, String extension) {
+			this.token = token;
+			this.extension = extension;
+		}
+
+	}
+
+	private final AssetSource source;
+
+	private final @Nullable AssetManifest manifest;
+
+	private final @Nullable AssetCache cache;
+
+	private String filekey = "*";
+
+	private String prefix = "/";
+
+	public PrecompressedAssetHandler(AssetSource source) {
+		this(source, null, null);
+	}
+
+	public PrecompressedAssetHandler(AssetSource source, @Nullable AssetManifest manifest, @Nullable AssetCache cache) {
+		super();
+		this.source = source;
+		this.manifest = manifest;
+		this.cache = cache;
+	}
+
+	@Override
+	public Object apply(Context ctx) throws Exception {
+		String path = ctx.path(filekey).value("");
+		boolean immutable = false;
+		Fingerprint fingerprint = manifest == null ? null : Fingerprint.parse(path);
+		if (manifest != null && fingerprint != null) {
+			path = fingerprint.path();
+			immutable = fingerprint.hash().equals(manifest.hash(prefix + path));
+		}
+		ctx.setResponseHeader("Vary", "Accept-Encoding");
+		if (immutable) {
+			ctx.setResponseHeader("Cache-Control", IMMUTABLE);
+		}
+		String accept = ctx.header("Accept-Encoding").value("");
+		List<String> missed = List.of();
+		if (!path.isEmpty() && !accept.isEmpty()) {
+			for (Encoding e : Encoding.values()) {
+				if (!accepts(accept, e.token)) {
+					continue;
+				}
+				String file = path + e.extension;
+				if (send(ctx, file, MediaType.byFile(path), e)) {
+					missing(missed);
+					return ctx;
+				}
+				missed = missed.isEmpty() ? new ArrayList<>(2) : missed;
+				missed.add(file);
+			}
+		}
+		if (path.isEmpty() || !send(ctx, path, MediaType.byFile(path), null)) {
+			throw new StatusCodeException(StatusCode.NOT_FOUND);
+		}
+		missing(missed);
+		return ctx;
+	}
+
+	/*
+	 * Only called once some file for the path was found so that random request paths can
+	 * not grow the cache.
+	 */
+	private void missing(List<String> files) {
+		if (cache != null) {
+			for (String file : files) {
+				cache.missing(prefix + file);
+			}
+		}
+	}
+
+	private boolean send(Context ctx, String file, MediaType type, @Nullable Encoding encoding) throws Exception {
+		String key = prefix + file;
+		AssetCache.Entry entry = cache == null ? null : cache.get(key);
+		if (entry == null && cache != null && cache.isMissing(key)) {
+			return false;
+		}
+		if (entry == null) {
+			Asset asset = source.resolve(file);
+			if (asset == null) {
+				return false;
+			}
+			try (asset) {
+				if (asset.isDirectory()) {
+					return false;
+				}
+				entry = cache == null ? null : cache.load(key, asset, type);
+				if (entry == null) {
+					String etag = asset.getEtag();
+					long modified = asset.getLastModified();
+					if (headers(ctx, etag, Instant.ofEpochMilli(modified), modified, encoding)) {
+						ctx.setResponseType(type);
+						ctx.setResponseLength(asset.getSize());
+						ctx.send(asset.stream());
+					}
+					return true;
+				}
+			}
+		}
+		if (headers(ctx, entry.etag(), entry.lastModified(), entry.modified(), encoding)) {
+			ctx.setResponseType(entry.type());
+			ctx.setResponseLength(entry.length());
+			ctx.send(entry.body());
+		}
+		return true;
+	}
+
+	/*
+	 * Returns false if a 304 was sent.
+	 */
+	private static boolean headers(Context ctx, String etag, Object lastModified, long modified,
+			@Nullable Encoding encoding) {
+		ctx.setResponseHeader("ETag", etag);
+		ctx.setResponseHeader("Last-Modified", lastModified);
+		if (notModified(ctx, etag, modified)) {
+			ctx.send(StatusCode.NOT_MODIFIED);
+			return false;
+		}
+		if (encoding != null) {
+			ctx.setResponseHeader("Content-Encoding", encoding.token);
+		}
+		return true;
+	}
+
+	/*
+	 * If-None-Match wins over If-Modified-Since when both are sent (RFC 9110 13.2.2).
+	 */
+	private static boolean notModified(Context ctx, String etag, long modified) {
+		String ifNoneMatch = ctx.header("If-None-Match").valueOrNull();
+		if (ifNoneMatch != null) {
+			return etag.equals(ifNoneMatch);
+		}
+		String since = ctx.header("If-Modified-Since").valueOrNull();
+		if (since == null || modified <= 0) {
+			return false;
+		}
+		try {
+			return modified / 1000 <= ZonedDateTime.parse(since, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+		}
+		catch (DateTimeParseException e) {
+			return false;
+		}
+	}
+
+	static boolean accepts(String acceptEncoding, String token) {
+		for (String part : acceptEncoding.split(",")) {
+			String p = part.trim();
+			int semi = p.indexOf(';');
+			String name = semi < 0 ? p : p.substring(0, semi).trim();
+			if (name.equalsIgnoreCase(token)) {
+				return semi < 0 || quality(p.substring(semi + 1)) > 0;
+			}
+		}
+		return false;
+	}
+
+	private static double quality(String params) {
+		String q = params.trim();
+		if (!q.startsWith("q=")) {
+			return 1;
+		}
+		try {
+			return Double.parseDouble(q.substring(2));
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	@Override
+	public void setRoute(Route route) {
+		List<String> keys = route.getPathKeys();
+		String pattern = route.getPattern();
+		this.filekey = keys.isEmpty() ? pattern.substring(1) : keys.get(keys.size() - 1);
+		int star = pattern.indexOf('*');
+		this.prefix = star < 0 ? pattern : pattern.substring(0, star);
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.adamgent.petclinic.config.jooby;
+
+import java.util.function.BooleanSupplier;
+
+import io.jooby.Extension;
+import io.jooby.Jooby;
+import io.jooby.MediaType;
+import io.jooby.StatusCode;
+
+/**
+ * Readiness endpoint plus a fail fast 503 for every route registered after it while not
+ * ready, so requests do not pile up waiting on a pool that has no connections yet.
+ */
+@SuppressWarnings("exports")
+public class ReadinessGate implements Extension {
+
+	private final String path;
+
+	private final BooleanSupplier ready;
+
+	ReadinessGate(String path, BooleanSupplier ready) {
+		super();
+		this.path = path;
+		this.ready = ready;
+	}
+
+	public static ReadinessGate of(String path, BooleanSupplier ready) {
+		return new ReadinessGate(path, ready);
+	}
+
+	@Override
+	public void install(Jooby application) throws Exception {
+		application.get(path, ctx -> {
+			ctx.setResponseType(MediaType.text);
+			if (ready.getAsBoolean()) {
+				return "READY\n";
+			}
+			ctx.setResponseCode(StatusCode.SERVICE_UNAVAILABLE);
+			return "NOT READY\n";
+		});
+		application.use(next -> ctx -> {
+			if (!ready.getAsBoolean()) {
+				ctx.setResponseHeader("Retry-After", "1");
+				return ctx.send(StatusCode.SERVICE_UNAVAILABLE);
+			}
+			return next.apply(ctx);
+		});
+	}
+
+}
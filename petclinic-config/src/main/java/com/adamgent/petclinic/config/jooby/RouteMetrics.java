@@ -0,0 +1,146 @@
+package com.adamgent.petclinic.config.jooby;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import io.jooby.Context;
+import io.jooby.Extension;
+import io.jooby.Jooby;
+import io.jooby.MediaType;
+import io.jooby.Route;
+
+/**
+ * Per route latency, throughput, in flight and status class metrics exposed in the
+ * Prometheus text format.
+ * <p>
+ * Install before the routes that should be measured. Latency is taken when the response
+ * completes so streamed responses are measured in full. Histograms are cumulative since
+ * start like counters are.
+ */
+@SuppressWarnings("exports")
+public class RouteMetrics implements Extension {
+
+	private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+
+	private final String path;
+
+	private final Map<String, Stats> routes = new ConcurrentHashMap<>();
+
+	RouteMetrics(String path) {
+		super();
+		this.path = path;
+	}
+
+	public static RouteMetrics of(String path) {
+		return new RouteMetrics(path);
+	}
+
+	static final class Stats {
+
+		final String method;
+
+		final String pattern;
+
+		final LatencyHistogram latency = new LatencyHistogram();
+
+		final LongAdder inFlight = new LongAdder();
+
+		// 1xx to 5xx
+		final AtomicLongArray status = new AtomicLongArray(5);
+
+		Stats(String method, String pattern) {
+			this.method = method;
+			this.pattern = pattern;
+		}
+
+	}
+
+	@Override
+	public void install(Jooby application) throws Exception {
+		application.get(path, ctx -> ctx.setResponseType(MediaType.text).send(scrape()));
+		application.use(next -> ctx -> {
+			Stats stats = stats(ctx);
+			long start = System.nanoTime();
+			stats.inFlight.increment();
+			ctx.onComplete(c -> complete(stats, c, start));
+			return next.apply(ctx);
+		});
+	}
+
+	/**
+	 * @return requests currently in flight over all measured routes.
+	 */
+	public long inFlight() {
+		long n = 0;
+		for (Stats s : routes.values()) {
+			n += s.inFlight.sum();
+		}
+		return n;
+	}
+
+	private Stats stats(Context ctx) {
+		Route route = ctx.getRoute();
+		String key = route.getMethod() + " " + route.getPattern();
+		return routes.computeIfAbsent(key, k -> new Stats(route.getMethod(), route.getPattern()));
+	}
+
+	private static void complete(Stats stats, Context ctx, long start) {
+		stats.latency.record((System.nanoTime() - start) / 1000);
+		stats.inFlight.decrement();
+		int c = ctx.getResponseCode().value() / 100;
+		if (c >= 1 && c <= 5) {
+			stats.status.incrementAndGet(c - 1);
+		}
+	}
+
+	String scrape() {
+		StringBuilder sb = new StringBuilder(1024);
+		sb.append("# TYPE http_server_requests_seconds summary\n");
+		for (Stats s : routes.values()) {
+			for (double q : QUANTILES) {
+				sample(sb, "http_server_requests_seconds", s, "quantile", Double.toString(q),
+						seconds(s.latency.quantile(q)));
+			}
+			sample(sb, "http_server_requests_seconds_count", s, null, null, Long.toString(s.latency.count()));
+			sample(sb, "http_server_requests_seconds_sum", s, null, null, seconds(s.latency.sum()));
+		}
+		sb.append("# TYPE http_server_requests_total counter\n");
+		for (Stats s : routes.values()) {
+			for (int i = 0; i < 5; i++) {
+				long n = s.status.get(i);
+				if (n > 0) {
+					sample(sb, "http_server_requests_total", s, "status", (i + 1) + "xx", Long.toString(n));
+				}
+			}
+		}
+		sb.append("# TYPE http_server_requests_in_flight gauge\n");
+		for (Stats s : routes.values()) {
+			sample(sb, "http_server_requests_in_flight", s, null, null, Long.toString(s.inFlight.sum()));
+		}
+		return sb.toString();
+	}
+
+	private static void sample(StringBuilder sb, String name, Stats s, @Nullable String label,
+			@Nullable String labelValue, String value) {
+		sb.append(name).append("{method=\"").append(s.method).append("\",route=\"").append(escape(s.pattern));
+		sb.append('"');
+		if (label != null) {
+			sb.append(',').append(label).append("=\"").append(labelValue).append('"');
+		}
+		sb.append("} ").append(value).append('\n');
+	}
+
+	private static String seconds(long micros) {
+		return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+	}
+
+	private static String escape(String s) {
+		return s.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+}
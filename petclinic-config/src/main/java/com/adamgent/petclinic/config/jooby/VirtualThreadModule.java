@@ -0,0 +1,104 @@
+package com.adamgent.petclinic.config.jooby;
+
+import java.lang.System.Logger.Level;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.MDC;
+
+import io.jooby.Extension;
+import io.jooby.Jooby;
+
+/**
+ * Runs blocking handlers on virtual threads so concurrency is bounded by the connection
+ * pool rather than the worker pool.
+ * <p>
+ * Selected for every blocking route with <code>web.executor=virtual</code>, which also
+ * makes <code>@Dispatch(VirtualThreadModule.EXECUTOR)</code> run on virtual threads. With
+ * <code>worker</code> no virtual thread executor is created and the key is the worker
+ * pool. We still compile for 17 so the executor is looked up reflectively; if that fails
+ * for any reason (an older runtime, or 19/20 without <code>--enable-preview</code>) we
+ * warn and use the worker pool rather than fail the boot.
+ */
+@SuppressWarnings("exports")
+public class VirtualThreadModule implements Extension {
+
+	public static final String EXECUTOR = "virtual";
+
+	private static final System.Logger logger = System.getLogger(VirtualThreadModule.class.getName());
+
+	public enum Mode {
+
+		WORKER, VIRTUAL;
+
+		public static Mode of(String value) {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		}
+
+	}
+
+	private final Mode mode;
+
+	VirtualThreadModule(Mode mode) {
+		super();
+		this.mode = mode;
+	}
+
+	public static VirtualThreadModule of(Mode mode) {
+		return new VirtualThreadModule(mode);
+	}
+
+	@Override
+	public void install(Jooby application) throws Exception {
+		ExecutorService virtual = mode == Mode.VIRTUAL ? newVirtualThreadExecutor() : null;
+		if (virtual == null) {
+			application.executor(EXECUTOR, task -> application.getWorker().execute(task));
+			return;
+		}
+		Executor executor = mdc(virtual);
+		application.executor(EXECUTOR, executor);
+		application.setWorker(executor);
+		application.onStop(virtual::shutdown);
+		logger.log(Level.INFO, "Virtual thread executor installed. mode: " + mode);
+	}
+
+	/*
+	 * Jooby hands the Context to the task itself. The only thread bound request state we
+	 * have is the logging MDC so carry that over.
+	 */
+	static Executor mdc(Executor executor) {
+		return task -> {
+			Map<String, String> context = MDC.getCopyOfContextMap();
+			executor.execute(() -> {
+				if (context != null) {
+					MDC.setContextMap(context);
+				}
+				try {
+					task.run();
+				}
+				finally {
+					MDC.clear();
+				}
+			});
+		};
+	}
+
+	static @Nullable ExecutorService newVirtualThreadExecutor() {
+		try {
+			var mh = MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+					MethodType.methodType(ExecutorService.class));
+			return (ExecutorService) mh.invoke();
+		}
+		catch (Throwable e) {
+			logger.log(Level.WARNING, "Virtual threads not available on this runtime. Using the worker pool.", e);
+			return null;
+		}
+	}
+
+}
@@ -8,6 +8,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 import io.jooby.Router;
 import io.jooby.handler.AssetSource;
 
@@ -25,6 +27,8 @@ public interface WebJar {
 
 		private List<WebJar> jars = new ArrayList<>();
 
+		private @Nullable AssetCache cache;
+
 		private Builder() {
 			super();
 		}
@@ -34,13 +38,22 @@ public interface WebJar {
 			return this;
 		}
 
+		public Builder cache(AssetCache cache) {
+			this.cache = cache;
+			return this;
+		}
+
 		public <R extends Router> R install(R j, ClassLoader classLoader) {
-			return install(j, classLoader, "/webjars");
+			return install(j, AssetManifest.of(classLoader));
 		}
 
-		<R extends Router> R install(R j, ClassLoader classLoader, String path) {
+		public <R extends Router> R install(R j, AssetManifest manifest) {
+			return install(j, manifest, "/webjars");
+		}
+
+		<R extends Router> R install(R j, AssetManifest manifest, String path) {
 			for (var jar : jars) {
-				jar.install(j, classLoader, path);
+				jar.install(j, manifest, cache, path);
 			}
 			return j;
 		}
@@ -52,21 +65,21 @@ public interface WebJar {
 	}
 
 	default <R extends Router> R install(R j, ClassLoader classLoader) {
-		return install(j, classLoader, "");
+		return install(j, AssetManifest.of(classLoader), null, "");
 	}
 
-	default <R extends Router> R install(R j, ClassLoader classLoader, String path) {
-		var source = webjar(classLoader);
-		j.assets(path + path(), source);
+	/**
+	 * Serves the webjar under <code>path/artifactId/</code> without the version and
+	 * registers it with the manifest so its files can be fingerprinted.
+	 */
+	default <R extends Router> R install(R j, AssetManifest manifest, @Nullable AssetCache cache, String path) {
+		ClassLoader loader = manifest.loader();
+		String source = sourcePath(version(loader));
+		manifest.mount(path + "/" + artifactId() + "/", source);
+		j.get(path + path(), new PrecompressedAssetHandler(AssetSource.create(loader, source), manifest, cache));
 		return j;
 	}
 
-	private AssetSource webjar(ClassLoader loader) {
-		String version = version(loader);
-		String source = sourcePath(version);
-		return AssetSource.create(loader, source);
-	}
-
 	private String path() {
 		return "/" + artifactId() + "/*";
 	}
@@ -79,7 +92,7 @@ public interface WebJar {
 		return "META-INF/resources/webjars/" + artifactId() + "/" + version;
 	}
 
-	private String version(ClassLoader loader) {
+	default String version(ClassLoader loader) {
 		String versionPath = mavenVersionPath();
 		try (InputStream in = loader.getResourceAsStream(versionPath)) {
 			requireNonNull(in, versionPath);
@@ -0,0 +1,186 @@
+package com.adamgent.petclinic.config.sql;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLDataException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.postgresql.PGConnection;
+
+/**
+ * Bulk import of owners and their pets from CSV with postgres COPY.
+ * <p>
+ * Both files are streamed straight into temporary staging tables so memory does not
+ * depend on the file size. The pets are then linked to their owners and types with set
+ * based inserts, all in one transaction: either everything is imported or nothing is.
+ * <p>
+ * <code>owners.csv</code> columns (with a header row):
+ * <code>ref,first_name,last_name,address,city,telephone</code> where <code>ref</code> is
+ * any unique key from the source system. <code>pets.csv</code> columns:
+ * <code>owner_ref,name,birth_date,type</code> where <code>type</code> is the name of an
+ * existing pet type.
+ */
+public final class CsvImport {
+
+	/**
+	 * Receives progress while a file is being copied and once per step.
+	 */
+	@FunctionalInterface
+	public interface Progress {
+
+		/**
+		 * @param step what is running.
+		 * @param count bytes copied so far while copying, rows once a step is done.
+		 */
+		void report(String step, long count);
+
+	}
+
+	public record Result(long owners, long pets) {
+	}
+
+	private static final long REPORT_BYTES = 8 * 1024 * 1024;
+
+	private final Progress progress;
+
+	private CsvImport(Progress progress) {
+		this.progress = progress;
+	}
+
+	public static CsvImport of(Progress progress) {
+		return new CsvImport(progress);
+	}
+
+	/**
+	 * Runs the import in its own transaction on the given connection.
+	 * @param connection a postgres connection (pooled is fine). Auto commit is restored
+	 * afterwards.
+	 * @param owners owners CSV.
+	 * @param pets pets CSV.
+	 * @return rows inserted.
+	 * @throws SQLException if copying fails, the CSV is malformed or a pet cannot be
+	 * resolved (SQL state class 22 or 23 for bad data). Nothing is imported in that case.
+	 * @throws IOException if reading a file fails.
+	 */
+	public Result run(Connection connection, InputStream owners, InputStream pets) throws SQLException, IOException {
+		boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		try (Statement s = connection.createStatement()) {
+			/*
+			 * The staging owners draw their ids from the owners identity up front so the
+			 * pets can be joined to them by ref.
+			 */
+			s.execute("""
+					create temp table import_owners (
+					  id int not null default nextval(pg_get_serial_sequence('owners', 'id')),
+					  ref text not null, first_name text, last_name text, address text, city text, telephone text
+					) on commit drop
+					""");
+			s.execute("""
+					create temp table import_pets (
+					  owner_ref text not null, name text, birth_date date, type text not null
+					) on commit drop
+					""");
+			var copy = connection.unwrap(PGConnection.class).getCopyAPI();
+			long ownerRows = copy.copyIn("""
+					copy import_owners (ref, first_name, last_name, address, city, telephone)
+					from stdin (format csv, header true, encoding 'UTF8')
+					""", counting("owners", owners));
+			progress.report("owners copied", ownerRows);
+			long petRows = copy.copyIn("""
+					copy import_pets (owner_ref, name, birth_date, type)
+					from stdin (format csv, header true, encoding 'UTF8')
+					""", counting("pets", pets));
+			progress.report("pets copied", petRows);
+			// temp tables are never auto analyzed and the joins below need the row counts
+			s.execute("analyze import_owners, import_pets");
+
+			check(s, "duplicate owner ref", """
+					select ref from import_owners group by ref having count(*) > 1
+					""");
+			check(s, "unresolved pet", """
+					select p.owner_ref || ' ' || coalesce(p.name, '') || ' ' || p.type from import_pets p
+					where not exists (select 1 from import_owners o where o.ref = p.owner_ref)
+					or not exists (select 1 from types t where t.name = p.type)
+					""");
+
+			long insertedOwners = s.executeUpdate("""
+					insert into owners (id, first_name, last_name, address, city, telephone)
+					select id, first_name, last_name, address, city, telephone from import_owners
+					""");
+			progress.report("owners inserted", insertedOwners);
+			long insertedPets = s.executeUpdate("""
+					insert into pets (name, birth_date, type_id, owner_id)
+					select p.name, p.birth_date, t.id, o.id
+					from import_pets p
+					join import_owners o on o.ref = p.owner_ref
+					join types t on t.name = p.type
+					""");
+			progress.report("pets inserted", insertedPets);
+			connection.commit();
+			return new Result(insertedOwners, insertedPets);
+		}
+		catch (SQLException | IOException | RuntimeException e) {
+			connection.rollback();
+			throw e;
+		}
+		finally {
+			connection.setAutoCommit(autoCommit);
+		}
+	}
+
+	private static void check(Statement s, String problem, String sql) throws SQLException {
+		List<String> examples = new ArrayList<>();
+		try (ResultSet rs = s.executeQuery(sql + " limit 5")) {
+			while (rs.next()) {
+				examples.add(rs.getString(1));
+			}
+		}
+		if (!examples.isEmpty()) {
+			throw new SQLDataException(problem + ": " + examples, "22000");
+		}
+	}
+
+	private InputStream counting(String step, InputStream in) {
+		return new FilterInputStream(in) {
+
+			private long count;
+
+			private long next = REPORT_BYTES;
+
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b >= 0) {
+					add(1);
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, len);
+				if (n > 0) {
+					add(n);
+				}
+				return n;
+			}
+
+			private void add(int n) {
+				count += n;
+				if (count >= next) {
+					next = count + REPORT_BYTES;
+					progress.report(step, count);
+				}
+			}
+
+		};
+	}
+
+}
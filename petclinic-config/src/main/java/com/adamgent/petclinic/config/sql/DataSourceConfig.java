@@ -3,6 +3,7 @@ package com.adamgent.petclinic.config.sql;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
 import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -86,14 +87,58 @@ public record DataSourceConfig(String url, String username, String password, Str
 		return Component.of(hikari(url, username, password, driverClassName));
 	}
 
+	/**
+	 * Creates the pool without waiting for the database. Connections are opened in the
+	 * background and {@link DataSourceReadiness} reports when the minimum are there.
+	 * @return pool that may not have any connections yet.
+	 */
+	public Component<DataSource> pool() {
+		HikariConfig hc = hikariConfig(url, username, password, driverClassName);
+		hc.setInitializationFailTimeout(-1);
+		return Component.of(new HikariDataSource(hc));
+	}
+
+	/**
+	 * Like {@link #pool()} but capped at a few connections and none kept idle. For work
+	 * that holds a connection for as long as a client takes (downloads) so it cannot
+	 * starve the main pool.
+	 * @param maximumPoolSize most connections open at once.
+	 * @return pool that only opens connections on demand.
+	 */
+	public Component<DataSource> smallPool(int maximumPoolSize) {
+		HikariConfig hc = hikariConfig(url, username, password, driverClassName);
+		hc.setInitializationFailTimeout(-1);
+		hc.setMaximumPoolSize(maximumPoolSize);
+		hc.setMinimumIdle(0);
+		return Component.of(new HikariDataSource(hc));
+	}
+
+	/**
+	 * Like {@link #pool()} but read only connections and a short connection timeout so a
+	 * replica that is down is noticed quickly.
+	 * @param connectionTimeout how long to wait for a connection.
+	 * @return pool that may not have any connections yet.
+	 */
+	public Component<DataSource> replicaPool(Duration connectionTimeout) {
+		HikariConfig hc = hikariConfig(url, username, password, driverClassName);
+		hc.setInitializationFailTimeout(-1);
+		hc.setReadOnly(true);
+		hc.setConnectionTimeout(connectionTimeout.toMillis());
+		return Component.of(new HikariDataSource(hc));
+	}
+
 	private static DataSource hikari(String url, String username, String password, String driverClassName) {
+		return new HikariDataSource(hikariConfig(url, username, password, driverClassName));
+	}
+
+	private static HikariConfig hikariConfig(String url, String username, String password, String driverClassName) {
 		HikariConfig hc = new HikariConfig();
 		hc.setJdbcUrl(url);
 		hc.setUsername(username);
 		hc.setPassword(password);
 		hc.setRegisterMbeans(false);
 		hc.setDriverClassName(driverClassName);
-		return new HikariDataSource(hc);
+		return hc;
 	}
 
 }
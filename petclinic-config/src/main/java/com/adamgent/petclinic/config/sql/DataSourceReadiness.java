@@ -0,0 +1,48 @@
+package com.adamgent.petclinic.config.sql;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.function.BooleanSupplier;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Ready once the pool holds its minimum number of (validated) connections. It latches so
+ * that connections being retired and replaced later do not flap readiness.
+ */
+public final class DataSourceReadiness implements BooleanSupplier {
+
+	private static final Logger logger = System.getLogger(DataSourceReadiness.class.getName());
+
+	private final DataSource dataSource;
+
+	private volatile boolean ready;
+
+	private DataSourceReadiness(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	public static DataSourceReadiness of(DataSource dataSource) {
+		return new DataSourceReadiness(dataSource);
+	}
+
+	@Override
+	public boolean getAsBoolean() {
+		if (ready) {
+			return true;
+		}
+		if (dataSource instanceof HikariDataSource h) {
+			HikariPoolMXBean pool = h.getHikariPoolMXBean();
+			if (pool == null || pool.getTotalConnections() < h.getMinimumIdle()) {
+				return false;
+			}
+		}
+		ready = true;
+		logger.log(Level.INFO, "DataSource ready");
+		return true;
+	}
+
+}
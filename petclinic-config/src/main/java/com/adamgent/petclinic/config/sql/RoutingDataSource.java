@@ -0,0 +1,268 @@
+package com.adamgent.petclinic.config.sql;
+
+import java.io.PrintWriter;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Sends connections requested inside {@link #readOnly(Callable)} to a read replica and
+ * everything else to the primary.
+ * <p>
+ * The first connection of a scope picks the healthy replica with the fewest connections
+ * currently checked out through this data source (least outstanding requests), and every
+ * later connection of that scope comes from the same one so that all reads see the same
+ * point of replication. A replica that fails to hand out a connection is ejected for a
+ * while and the scope moves to the next one. If none are left, the scope stays on the
+ * primary. Work that writes, or must read its own writes, simply does not enter a read
+ * only scope.
+ */
+public final class RoutingDataSource implements DataSource, AutoCloseable {
+
+	private static final Logger logger = System.getLogger(RoutingDataSource.class.getName());
+
+	/*
+	 * The replica (or primary) each routing data source is pinned to in the current
+	 * scope. Absent outside a scope.
+	 */
+	private static final ThreadLocal<@Nullable Map<RoutingDataSource, Replica>> scope = new ThreadLocal<>();
+
+	private final DataSource primary;
+
+	private final List<Replica> replicas;
+
+	private final long ejectNanos;
+
+	private final AtomicInteger start = new AtomicInteger();
+
+	private final Replica primaryPin;
+
+	static final class Replica {
+
+		final String name;
+
+		final DataSource dataSource;
+
+		final AtomicInteger outstanding = new AtomicInteger();
+
+		volatile long ejectedUntil;
+
+		volatile boolean ejected;
+
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+
+		boolean healthy(long now) {
+			return !ejected || now - ejectedUntil >= 0;
+		}
+
+	}
+
+	private RoutingDataSource(DataSource primary, List<Replica> replicas, long ejectNanos) {
+		this.primary = primary;
+		this.replicas = replicas;
+		this.ejectNanos = ejectNanos;
+		this.primaryPin = new Replica("primary", primary);
+	}
+
+	/**
+	 * @param primary read write data source.
+	 * @param replicas read only data sources by name.
+	 * @param eject how long a failing replica is skipped.
+	 * @return routing data source that owns (and closes) all of them.
+	 */
+	public static RoutingDataSource of(DataSource primary, Map<String, DataSource> replicas, Duration eject) {
+		List<Replica> r = new ArrayList<>();
+		replicas.forEach((name, ds) -> r.add(new Replica(name, ds)));
+		return new RoutingDataSource(primary, List.copyOf(r), eject.toNanos());
+	}
+
+	/**
+	 * Runs work whose connections may go to a replica, all to the same one. Nests: an
+	 * inner scope joins the outer one.
+	 * @param <T> result type.
+	 * @param work read only database work on this thread.
+	 * @return result of work.
+	 * @throws Exception from work.
+	 */
+	public static <T> T readOnly(Callable<T> work) throws Exception {
+		if (scope.get() != null) {
+			return work.call();
+		}
+		scope.set(new IdentityHashMap<>(2));
+		try {
+			return work.call();
+		}
+		finally {
+			scope.remove();
+		}
+	}
+
+	public DataSource primary() {
+		return primary;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		var pins = scope.get();
+		if (pins == null || replicas.isEmpty()) {
+			return primary.getConnection();
+		}
+		Replica pinned = pins.get(this);
+		if (pinned == primaryPin) {
+			return primary.getConnection();
+		}
+		int n = replicas.size();
+		boolean[] tried = new boolean[n];
+		if (pinned != null) {
+			tried[replicas.indexOf(pinned)] = true;
+			Connection c = connect(pinned);
+			if (c != null) {
+				return c;
+			}
+		}
+		for (int attempt = 0; attempt < n; attempt++) {
+			Replica replica = leastOutstanding(tried);
+			if (replica == null) {
+				break;
+			}
+			Connection c = connect(replica);
+			if (c != null) {
+				pins.put(this, replica);
+				return c;
+			}
+		}
+		pins.put(this, primaryPin);
+		return primary.getConnection();
+	}
+
+	private @Nullable Connection connect(Replica replica) {
+		replica.outstanding.incrementAndGet();
+		try {
+			Connection c = replica.dataSource.getConnection();
+			replica.ejected = false;
+			return tracked(c, replica);
+		}
+		catch (SQLException | RuntimeException e) {
+			replica.outstanding.decrementAndGet();
+			replica.ejectedUntil = System.nanoTime() + ejectNanos;
+			replica.ejected = true;
+			logger.log(Level.WARNING, "Ejecting replica " + replica.name + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private @Nullable Replica leastOutstanding(boolean[] tried) {
+		long now = System.nanoTime();
+		int n = replicas.size();
+		// start at a rotating index so ties are spread out
+		int offset = Math.floorMod(start.getAndIncrement(), n);
+		Replica best = null;
+		int bestIndex = -1;
+		for (int i = 0; i < n; i++) {
+			int index = (offset + i) % n;
+			Replica r = replicas.get(index);
+			if (tried[index] || !r.healthy(now)) {
+				continue;
+			}
+			if (best == null || r.outstanding.get() < best.outstanding.get()) {
+				best = r;
+				bestIndex = index;
+			}
+		}
+		if (bestIndex >= 0) {
+			tried[bestIndex] = true;
+		}
+		return best;
+	}
+
+	private static Connection tracked(Connection c, Replica replica) {
+		AtomicBoolean closed = new AtomicBoolean();
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+						replica.outstanding.decrementAndGet();
+					}
+					try {
+						return method.invoke(c, args);
+					}
+					catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return primary.getConnection(username, password);
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return primary.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		primary.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		primary.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return primary.getLoginTimeout();
+	}
+
+	@Override
+	public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return primary.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		return primary.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || primary.isWrapperFor(iface);
+	}
+
+	@Override
+	public void close() throws Exception {
+		for (var r : replicas) {
+			if (r.dataSource instanceof AutoCloseable c) {
+				c.close();
+			}
+		}
+		if (primary instanceof AutoCloseable c) {
+			c.close();
+		}
+	}
+
+}
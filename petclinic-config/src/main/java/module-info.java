@@ -32,6 +32,7 @@ module com.adamgent.petclinic.config {
 	requires static org.mapstruct;
 	requires static java.compiler;
 	requires static com.zaxxer.hikari;
+	requires static org.postgresql.jdbc;
 	requires static org.flywaydb.core;
 	
 }
\ No newline at end of file
@@ -1,4 +1,12 @@
 module com.adamgent.petclinic.db {
+	/*
+	 * Generated jOOQ tables are only for the repositories. Not a qualified export as this
+	 * module is compiled before com.adamgent.petclinic.repo exists.
+	 */
+	exports com.adamgent.petclinic.db.internal;
+	exports com.adamgent.petclinic.db.internal.tables;
+	exports com.adamgent.petclinic.db.internal.tables.records;
+
 	requires static org.eclipse.jdt.annotation;
 	requires com.zaxxer.hikari;
 	requires java.compiler;
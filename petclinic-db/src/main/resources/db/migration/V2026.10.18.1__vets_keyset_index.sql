@@ -0,0 +1 @@
+CREATE INDEX ON vets (last_name, id);
@@ -0,0 +1,31 @@
+-- A counter per table that is bumped by any write so that pages can be
+-- revalidated (ETag) without querying the data itself.
+CREATE TABLE IF NOT EXISTS data_versions (
+  table_name TEXT PRIMARY KEY,
+  version    BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO data_versions (table_name) VALUES
+  ('vets'), ('specialties'), ('vet_specialties'), ('types'), ('owners'), ('pets'), ('visits');
+
+CREATE OR REPLACE FUNCTION bump_data_version() RETURNS trigger AS $$
+BEGIN
+  UPDATE data_versions SET version = version + 1 WHERE table_name = TG_TABLE_NAME;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER vets_data_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON vets
+  FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
+CREATE TRIGGER specialties_data_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON specialties
+  FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
+CREATE TRIGGER vet_specialties_data_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON vet_specialties
+  FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
+CREATE TRIGGER types_data_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON types
+  FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
+CREATE TRIGGER owners_data_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON owners
+  FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
+CREATE TRIGGER pets_data_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON pets
+  FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
+CREATE TRIGGER visits_data_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON visits
+  FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
@@ -0,0 +1,4 @@
+-- Case insensitive prefix search on owner last name with keyset paging.
+-- The "C" collation lets the btree serve LIKE 'abc%' (same as text_pattern_ops) and also
+-- the ORDER BY and row comparison of the seek query which text_pattern_ops cannot.
+CREATE INDEX IF NOT EXISTS owners_last_name_search ON owners ((lower(last_name) COLLATE "C"), id);
@@ -0,0 +1,18 @@
+-- One counter row per table made every writer to that table wait on the same row lock
+-- until commit. Spread each table over 16 rows picked by backend pid. The version of a
+-- table is the sum of its rows which still only ever goes up.
+ALTER TABLE data_versions ADD COLUMN shard INT NOT NULL DEFAULT 0;
+ALTER TABLE data_versions DROP CONSTRAINT data_versions_pkey;
+ALTER TABLE data_versions ADD PRIMARY KEY (table_name, shard);
+
+INSERT INTO data_versions (table_name, shard)
+SELECT t.table_name, s.shard
+FROM (SELECT DISTINCT table_name FROM data_versions) t, generate_series(1, 15) AS s(shard);
+
+CREATE OR REPLACE FUNCTION bump_data_version() RETURNS trigger AS $$
+BEGIN
+  UPDATE data_versions SET version = version + 1
+  WHERE table_name = TG_TABLE_NAME AND shard = pg_backend_pid() % 16;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
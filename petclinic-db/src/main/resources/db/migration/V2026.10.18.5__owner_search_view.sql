@@ -0,0 +1,12 @@
+-- Owner search rows. search_key is the owners_last_name_search index expression so
+-- filters, seeks and sorts on it still use the index once the view is inlined. The pet
+-- names subquery is only evaluated for the rows that are returned.
+CREATE OR REPLACE VIEW owner_search AS
+SELECT o.*,
+  lower(o.last_name) COLLATE "C" AS search_key,
+  (
+    SELECT coalesce(string_agg(p.name, ', ' ORDER BY p.name, p.id), '')
+    FROM pets p
+    WHERE p.owner_id = o.id
+  ) AS pets
+FROM owners o;
@@ -0,0 +1,11 @@
+-- Vets with their specialty names as one text[] column. A correlated subquery rather
+-- than a grouped join so that, once the view is inlined, it only runs for the rows that
+-- survive a LIMIT and uses the vet_specialties unique index.
+CREATE OR REPLACE VIEW vet_list AS
+SELECT v.*,
+  (
+    SELECT coalesce(array_agg(s.name ORDER BY s.name), '{}')
+    FROM vet_specialties vs JOIN specialties s ON s.id = vs.specialty_id
+    WHERE vs.vet_id = v.id
+  ) AS specialties
+FROM vets v;
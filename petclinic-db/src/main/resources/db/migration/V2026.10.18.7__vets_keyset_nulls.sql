@@ -0,0 +1,4 @@
+-- last_name is nullable and a row comparison is never true for NULL so the vet seek
+-- orders on coalesce(last_name, '') instead. NULL names sort first and stay reachable.
+DROP INDEX IF EXISTS vets_last_name_id_idx;
+CREATE INDEX IF NOT EXISTS vets_sort_name_id_idx ON vets ((coalesce(last_name, '')), id);
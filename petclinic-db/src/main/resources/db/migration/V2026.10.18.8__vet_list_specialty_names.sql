@@ -0,0 +1,12 @@
+-- Specialty names as one text column separated by the unit separator (chr(31)), which
+-- never appears in a name, so the row maps to plain values like owner_search.pets. The
+-- column type changes so the view is recreated.
+DROP VIEW IF EXISTS vet_list;
+CREATE VIEW vet_list AS
+SELECT v.*,
+  (
+    SELECT coalesce(string_agg(s.name, chr(31) ORDER BY s.name), '')
+    FROM vet_specialties vs JOIN specialties s ON s.id = vs.specialty_id
+    WHERE vs.vet_id = v.id
+  ) AS specialties
+FROM vets v;
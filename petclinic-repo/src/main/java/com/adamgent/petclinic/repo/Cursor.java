@@ -0,0 +1,79 @@
+package com.adamgent.petclinic.repo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * A seek position of <code>(key, id)</code> used for keyset pagination.
+ *
+ * The encoded form is opaque and URL safe so it can be passed around as a query
+ * parameter.
+ */
+public record Cursor(Direction direction, String key, long id) {
+
+	public enum Direction {
+
+		NEXT('n'), PREV('p');
+
+		private final char prefix;
+
+		private Direction(char prefix) {
+			this.prefix = prefix;
+		}
+
+	}
+
+	public Cursor {
+		Objects.requireNonNull(direction);
+		Objects.requireNonNull(key);
+	}
+
+	public static Cursor next(String key, long id) {
+		return new Cursor(Direction.NEXT, key, id);
+	}
+
+	public static Cursor prev(String key, long id) {
+		return new Cursor(Direction.PREV, key, id);
+	}
+
+	public String encode() {
+		String raw = key + SEPARATOR + id;
+		return direction.prefix + ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static Cursor decode(String token) throws IllegalArgumentException {
+		if (token.length() < 2) {
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+		Direction direction = switch (token.charAt(0)) {
+			case 'n' -> Direction.NEXT;
+			case 'p' -> Direction.PREV;
+			default -> throw new IllegalArgumentException("Invalid cursor direction");
+		};
+		String raw = new String(DECODER.decode(token.substring(1)), StandardCharsets.UTF_8);
+		/*
+		 * The id is always numeric so we split on the last separator which allows the key
+		 * to contain anything.
+		 */
+		int index = raw.lastIndexOf(SEPARATOR);
+		if (index < 0) {
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+		String key = raw.substring(0, index);
+		long id = Long.parseLong(raw.substring(index + 1));
+		return new Cursor(direction, key, id);
+	}
+
+	@Override
+	public String toString() {
+		return encode();
+	}
+
+	private static final char SEPARATOR = ':';
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+}
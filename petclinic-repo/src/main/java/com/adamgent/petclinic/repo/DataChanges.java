@@ -0,0 +1,28 @@
+package com.adamgent.petclinic.repo;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import jakarta.inject.Singleton;
+
+/**
+ * In process notification of writes so caches can be invalidated. Write paths call
+ * {@link #changed(String)} with the table name after they commit.
+ */
+@Singleton
+public class DataChanges {
+
+	private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+	public void subscribe(Consumer<String> listener) {
+		listeners.add(listener);
+	}
+
+	public void changed(String table) {
+		for (var listener : listeners) {
+			listener.accept(table);
+		}
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.adamgent.petclinic.repo;
+
+import java.util.List;
+
+import org.seasar.doma.Dao;
+import org.seasar.doma.Select;
+import org.seasar.doma.Sql;
+
+import com.adamgent.petclinic.config.doma.DomaSupport;
+
+/**
+ * Per table write counters maintained by triggers. Each table is spread over several rows
+ * so concurrent writers do not queue on one row lock. The counters only ever go up so the
+ * sum changes whenever any of the tables change.
+ */
+@Dao
+@DomaSupport
+public interface DataVersionRepository {
+
+	@Sql("""
+			select coalesce(sum(version), 0) from data_versions
+			where table_name in /* tables */('vets')
+			""")
+	@Select
+	long version(List<String> tables);
+
+}
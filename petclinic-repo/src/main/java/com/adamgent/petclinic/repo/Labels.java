@@ -0,0 +1,89 @@
+package com.adamgent.petclinic.repo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * An immutable id/name lookup table for a small reference table. Names are stored in an
+ * array indexed by id (the ids are small dense serials) so both directions are a single
+ * lookup that does not allocate.
+ */
+public final class Labels {
+
+	private final @Nullable String[] names;
+
+	private final Map<String, Integer> ids;
+
+	private final List<String> sorted;
+
+	private Labels(@Nullable String[] names, Map<String, Integer> ids, List<String> sorted) {
+		this.names = names;
+		this.ids = ids;
+		this.sorted = sorted;
+	}
+
+	/**
+	 * Creates labels from rows.
+	 * @param rows id to name. Ids must not be negative.
+	 * @return labels.
+	 */
+	public static Labels of(Map<Integer, String> rows) {
+		int max = rows.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+		@Nullable
+		String[] names = new String[max + 1];
+		Map<String, Integer> ids = new HashMap<>(rows.size() * 2);
+		for (var e : rows.entrySet()) {
+			int id = e.getKey();
+			if (id < 0) {
+				throw new IllegalArgumentException("negative id: " + id);
+			}
+			names[id] = e.getValue();
+			ids.put(e.getValue(), id);
+		}
+		List<String> sorted = new ArrayList<>(ids.keySet());
+		sorted.sort(null);
+		return new Labels(names, Map.copyOf(ids), List.copyOf(sorted));
+	}
+
+	/**
+	 * @param id row id.
+	 * @return the name or null if there is no such id.
+	 */
+	public @Nullable String name(int id) {
+		return id >= 0 && id < names.length ? names[id] : null;
+	}
+
+	/**
+	 * @param name exact name.
+	 * @return the id or <code>-1</code> if there is no such name.
+	 */
+	public int id(String name) {
+		Integer id = ids.get(name);
+		return id == null ? -1 : id;
+	}
+
+	public boolean contains(String name) {
+		return ids.containsKey(name);
+	}
+
+	/**
+	 * @return names in alphabetical order, suitable for select boxes.
+	 */
+	public List<String> names() {
+		return sorted;
+	}
+
+	public int size() {
+		return sorted.size();
+	}
+
+	@Override
+	public String toString() {
+		return "Labels" + ids;
+	}
+
+}
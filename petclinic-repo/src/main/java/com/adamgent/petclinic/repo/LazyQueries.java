@@ -0,0 +1,90 @@
+package com.adamgent.petclinic.repo;
+
+import static com.adamgent.petclinic.db.internal.tables.VetListTable.VET_LIST;
+import static org.jooq.impl.DSL.coalesce;
+import static org.jooq.impl.DSL.inline;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.jooq.DSLContext;
+import org.jooq.Records;
+import org.seasar.doma.jdbc.tx.TransactionManager;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.doma.DomaConfig;
+import com.adamgent.petclinic.config.jooq.JooqFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Cursor backed variants of repository queries for lists too large to hold in memory. The
+ * queries here run on their own transactional config because postgres only streams with a
+ * cursor inside a transaction; with auto commit the driver reads every row before
+ * returning the first.
+ */
+@Singleton
+public class LazyQueries {
+
+	private static final int FETCH_SIZE = 256;
+
+	private final DomaConfig config;
+
+	private final TransactionManager transactions;
+
+	private final VetRepository vets;
+
+	private final DSLContext jooq;
+
+	@Inject
+	public LazyQueries(DomaConfig domaConfig, Config config) {
+		super();
+		this.config = domaConfig.withLocalTransactions();
+		this.transactions = this.config.getTransactionManager();
+		this.vets = new VetRepositoryImpl(this.config);
+		/*
+		 * Inside a transaction the data source hands out the transaction's connection.
+		 * Names are unqualified like the Doma SQL so both resolve through the search
+		 * path.
+		 */
+		var jooqConfig = JooqFactory.provideJOOQConfig(config, this.config.getDataSource());
+		jooqConfig.settings().setRenderSchema(false);
+		this.jooq = JooqFactory.provideDSLContext(jooqConfig);
+	}
+
+	/**
+	 * @return every vet ordered by name, fetched as iterated.
+	 */
+	public LazyResult<Vet> vets() {
+		return new LazyResult<>(config.getLocalTransaction(), this::streamVets);
+	}
+
+	/**
+	 * Calls the action for every vet ordered by name, fetched as they are consumed.
+	 * @param action called for each vet.
+	 */
+	public void forEachVet(Consumer<? super Vet> action) {
+		transactions.required(() -> vets.streamAll(s -> {
+			s.forEach(action);
+			return null;
+		}));
+	}
+
+	/*
+	 * Same rows and order as VetRepository.streamAll. A LazyResult needs a stream that
+	 * stays open after this returns, until a template has iterated it. Doma only streams
+	 * through a function and closes the stream when it returns, so this is a jOOQ cursor.
+	 */
+	private Stream<Vet> streamVets() {
+		return jooq
+				.select(VET_LIST.ID.convertFrom(Integer::longValue), VET_LIST.FIRST_NAME, VET_LIST.LAST_NAME,
+						VET_LIST.SPECIALTIES.convertFrom(Specialties::of)) //
+				.from(VET_LIST) //
+				.orderBy(coalesce(VET_LIST.LAST_NAME, inline("")), VET_LIST.ID) //
+				.fetchSize(FETCH_SIZE) //
+				.fetchStream() //
+				.map(Records.mapping(Vet::new));
+	}
+
+}
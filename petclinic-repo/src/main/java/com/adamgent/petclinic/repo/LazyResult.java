@@ -0,0 +1,98 @@
+package com.adamgent.petclinic.repo;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.seasar.doma.jdbc.tx.LocalTransaction;
+
+/**
+ * Query results that are fetched while they are iterated, e.g. by a template as it
+ * renders. Nothing is queried until {@link #iterator()} is called. A read transaction (so
+ * the driver uses a cursor) is then held until the rows run out or {@link #close()} is
+ * called, whichever comes first.
+ * <p>
+ * Single use and bound to the thread that iterates it. The owner must call
+ * {@link #close()} in case iteration stops early.
+ */
+public final class LazyResult<T> implements Iterable<T>, AutoCloseable {
+
+	private final LocalTransaction transaction;
+
+	private final Supplier<Stream<T>> query;
+
+	private @Nullable Stream<T> stream;
+
+	private boolean used;
+
+	LazyResult(LocalTransaction transaction, Supplier<Stream<T>> query) {
+		this.transaction = transaction;
+		this.query = query;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		if (used) {
+			throw new IllegalStateException("LazyResult can only be iterated once");
+		}
+		used = true;
+		transaction.begin();
+		Stream<T> s;
+		try {
+			s = query.get();
+		}
+		catch (RuntimeException e) {
+			transaction.rollback();
+			throw e;
+		}
+		stream = s;
+		Iterator<T> rows = s.iterator();
+		return new Iterator<>() {
+
+			@Override
+			public boolean hasNext() {
+				if (stream == null) {
+					return false;
+				}
+				if (rows.hasNext()) {
+					return true;
+				}
+				close();
+				return false;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return rows.next();
+			}
+
+		};
+	}
+
+	/**
+	 * Closes the cursor and ends the transaction if still open. Safe to call more than
+	 * once.
+	 */
+	@Override
+	public void close() {
+		var s = stream;
+		if (s == null) {
+			return;
+		}
+		stream = null;
+		try {
+			s.close();
+		}
+		finally {
+			// read only so rolling back is the same as committing and cheaper to reason
+			// about
+			transaction.rollback();
+		}
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.adamgent.petclinic.repo;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * An owner with their pets, each pet's type and visits. Loaded as one graph by
+ * {@link OwnerDetailsRepository}. Apart from the ids every column is nullable in the
+ * schema.
+ */
+public record OwnerDetails(long id, //
+		@Nullable String firstName, //
+		@Nullable String lastName, //
+		@Nullable String address, //
+		@Nullable String city, //
+		@Nullable String telephone, //
+		List<Pet> pets) {
+
+	public OwnerDetails {
+		pets = List.copyOf(pets);
+	}
+
+	public record Pet(long id, @Nullable String name, @Nullable LocalDate birthDate, @Nullable String type,
+			List<Visit> visits) {
+
+		public Pet {
+			visits = List.copyOf(visits);
+		}
+
+	}
+
+	public record Visit(long id, @Nullable LocalDate date, @Nullable String description) {
+
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.adamgent.petclinic.repo;
+
+import static com.adamgent.petclinic.db.internal.tables.OwnersTable.OWNERS;
+import static com.adamgent.petclinic.db.internal.tables.PetsTable.PETS;
+import static com.adamgent.petclinic.db.internal.tables.TypesTable.TYPES;
+import static com.adamgent.petclinic.db.internal.tables.VisitsTable.VISITS;
+import static org.jooq.impl.DSL.multiset;
+import static org.jooq.impl.DSL.select;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Records;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Loads the owner details graph in a single statement. Pets and their visits are nested
+ * MULTISETs (JSON aggregation on postgres) instead of 1 + N + N*M queries.
+ */
+@Singleton
+public class OwnerDetailsRepository {
+
+	private final DSLContext jooq;
+
+	@Inject
+	public OwnerDetailsRepository(DSLContext jooq) {
+		super();
+		this.jooq = jooq;
+	}
+
+	public Optional<OwnerDetails> findById(long id) {
+		Field<List<OwnerDetails.Visit>> visits = multiset(select(id(VISITS.ID), VISITS.VISIT_DATE, VISITS.DESCRIPTION) //
+				.from(VISITS) //
+				.where(VISITS.PET_ID.eq(PETS.ID)) //
+				.orderBy(VISITS.VISIT_DATE.desc(), VISITS.ID)) //
+						.convertFrom(r -> r.map(Records.mapping(OwnerDetails.Visit::new)));
+
+		Field<List<OwnerDetails.Pet>> pets = multiset(
+				select(id(PETS.ID), PETS.NAME, PETS.BIRTH_DATE, TYPES.NAME, visits) //
+						.from(PETS) //
+						.join(TYPES).on(TYPES.ID.eq(PETS.TYPE_ID)) //
+						.where(PETS.OWNER_ID.eq(OWNERS.ID)) //
+						.orderBy(PETS.NAME, PETS.ID)) //
+								.convertFrom(r -> r.map(Records.mapping(OwnerDetails.Pet::new)));
+
+		return jooq
+				.select(id(OWNERS.ID), OWNERS.FIRST_NAME, OWNERS.LAST_NAME, OWNERS.ADDRESS, OWNERS.CITY,
+						OWNERS.TELEPHONE, pets) //
+				.from(OWNERS) //
+				.where(OWNERS.ID.eq((int) id)) //
+				.fetchOptional(Records.mapping(OwnerDetails::new));
+	}
+
+	// ids are INT columns but long in the records like the Doma entities
+	private static Field<Long> id(Field<Integer> field) {
+		return field.convertFrom(Integer::longValue);
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.adamgent.petclinic.repo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import com.adamgent.petclinic.config.sql.CsvImport;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * {@link CsvImport} on the application pool. Progress is logged and caches are told about
+ * the new owners and pets.
+ */
+@Singleton
+public class OwnerImporter {
+
+	private static final Logger logger = System.getLogger(OwnerImporter.class.getName());
+
+	private final DataSource dataSource;
+
+	private final DataChanges dataChanges;
+
+	@Inject
+	public OwnerImporter(DataSource dataSource, DataChanges dataChanges) {
+		super();
+		this.dataSource = dataSource;
+		this.dataChanges = dataChanges;
+	}
+
+	public CsvImport.Result run(InputStream owners, InputStream pets) throws SQLException, IOException {
+		var csvImport = CsvImport.of((step, count) -> logger.log(Level.INFO, "Import " + step + ": " + count));
+		CsvImport.Result result;
+		try (var c = dataSource.getConnection()) {
+			result = csvImport.run(c, owners, pets);
+		}
+		dataChanges.changed("owners");
+		dataChanges.changed("pets");
+		return result;
+	}
+
+}
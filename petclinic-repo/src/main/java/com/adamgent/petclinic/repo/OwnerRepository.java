@@ -0,0 +1,66 @@
+package com.adamgent.petclinic.repo;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.seasar.doma.Dao;
+import org.seasar.doma.Select;
+import org.seasar.doma.Sql;
+
+import com.adamgent.petclinic.config.doma.DomaSupport;
+
+@Dao
+@DomaSupport
+public interface OwnerRepository {
+
+	/*
+	 * Case insensitive last name prefix search on the owner_search view. search_key is
+	 * the owners_last_name_search index expression so both the LIKE and the seek are
+	 * index range scans. The prefix is lowered and the cursor key read back from the
+	 * database so they compare exactly like the index no matter how Java would lower case
+	 * them.
+	 */
+	@Sql("""
+			select * from owner_search
+			where search_key like lower(/* @prefix(prefix) */'a%') escape '$'
+			/*%if lastName != null */
+			  and (search_key, id) > (/* lastName */'a', /* id */0)
+			/*%end*/
+			order by search_key, id
+			limit /* limit */10
+			""")
+	@Select
+	List<OwnerSummary> findByLastNameAfter(String prefix, @Nullable String lastName, long id, int limit);
+
+	@Sql("""
+			select * from owner_search
+			where search_key like lower(/* @prefix(prefix) */'a%') escape '$'
+			  and (search_key, id) < (/* lastName */'a', /* id */0)
+			order by search_key desc, id desc
+			limit /* limit */10
+			""")
+	@Select
+	List<OwnerSummary> findByLastNameBefore(String prefix, String lastName, long id, int limit);
+
+	/**
+	 * Finds owners whose last name starts with the prefix ignoring case.
+	 * @param prefix last name prefix. Empty finds all owners.
+	 * @param cursor seek cursor or null for the first page.
+	 * @param size page size.
+	 * @return page of owners ordered by last name.
+	 */
+	default Slice<OwnerSummary> findPageByLastName(String prefix, @Nullable Cursor cursor, int size) {
+		List<OwnerSummary> rows;
+		if (cursor == null) {
+			rows = findByLastNameAfter(prefix, null, 0, size + 1);
+		}
+		else {
+			rows = switch (cursor.direction()) {
+				case NEXT -> findByLastNameAfter(prefix, cursor.key(), cursor.id(), size + 1);
+				case PREV -> findByLastNameBefore(prefix, cursor.key(), cursor.id(), size + 1);
+			};
+		}
+		return Slice.of(rows, cursor, size, OwnerSummary::searchKey, OwnerSummary::id);
+	}
+
+}
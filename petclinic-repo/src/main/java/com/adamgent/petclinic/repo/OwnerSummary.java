@@ -0,0 +1,24 @@
+package com.adamgent.petclinic.repo;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.seasar.doma.Entity;
+import org.seasar.doma.Id;
+
+/**
+ * An owner row of the owner search with the owner's pet names joined by
+ * <code>", "</code>. Read only. The last name is never null as the search only matches
+ * owners that have one.
+ * @param searchKey <code>lower(last_name)</code> as computed by the database. The seek
+ * cursor is built from it so it compares exactly like the indexed expression.
+ */
+@Entity
+public record OwnerSummary(@Id long id, //
+		@Nullable String firstName, //
+		String lastName, //
+		@Nullable String address, //
+		@Nullable String city, //
+		@Nullable String telephone, //
+		String pets, //
+		String searchKey) {
+
+}
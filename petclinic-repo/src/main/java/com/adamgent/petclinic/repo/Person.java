@@ -1,9 +1,13 @@
 package com.adamgent.petclinic.repo;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 public interface Person {
 
+	@Nullable
 	String firstName();
 
+	@Nullable
 	String lastName();
 
 }
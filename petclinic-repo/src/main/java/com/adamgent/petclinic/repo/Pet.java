@@ -0,0 +1,23 @@
+package com.adamgent.petclinic.repo;
+
+import java.time.LocalDate;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A pets row. The type is an id from {@link ReferenceDataRegistry#types()}.
+ */
+public record Pet(long id, //
+		String name, //
+		@Nullable LocalDate birthDate, //
+		int typeId, //
+		long ownerId) {
+
+	/*
+	 * The id is assigned by the database on insert.
+	 */
+	public static Pet of(String name, @Nullable LocalDate birthDate, int typeId, long ownerId) {
+		return new Pet(-1, name, birthDate, typeId, ownerId);
+	}
+
+}
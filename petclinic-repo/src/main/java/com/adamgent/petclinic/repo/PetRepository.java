@@ -0,0 +1,44 @@
+package com.adamgent.petclinic.repo;
+
+import static com.adamgent.petclinic.db.internal.tables.OwnersTable.OWNERS;
+import static com.adamgent.petclinic.db.internal.tables.PetsTable.PETS;
+
+import org.jooq.DSLContext;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Callers report inserts to {@link DataChanges} once they have committed.
+ */
+@Singleton
+public class PetRepository {
+
+	private final DSLContext jooq;
+
+	@Inject
+	public PetRepository(DSLContext jooq) {
+		super();
+		this.jooq = jooq;
+	}
+
+	/**
+	 * @param pet new pet. The id is ignored.
+	 * @return the pet with its generated id.
+	 */
+	public Pet insert(Pet pet) {
+		int id = jooq.insertInto(PETS) //
+				.set(PETS.NAME, pet.name()) //
+				.set(PETS.BIRTH_DATE, pet.birthDate()) //
+				.set(PETS.TYPE_ID, pet.typeId()) //
+				.set(PETS.OWNER_ID, (int) pet.ownerId()) //
+				.returning(PETS.ID) //
+				.fetchSingle(PETS.ID);
+		return new Pet(id, pet.name(), pet.birthDate(), pet.typeId(), pet.ownerId());
+	}
+
+	public boolean ownerExists(long ownerId) {
+		return jooq.fetchExists(OWNERS, OWNERS.ID.eq((int) ownerId));
+	}
+
+}
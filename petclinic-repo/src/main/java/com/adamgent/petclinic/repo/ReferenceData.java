@@ -0,0 +1,11 @@
+package com.adamgent.petclinic.repo;
+
+/**
+ * A consistent snapshot of the reference tables.
+ * @param version sum of the <code>data_versions</code> of the tables when loaded.
+ * @param types pet types.
+ * @param specialties vet specialties.
+ */
+public record ReferenceData(long version, Labels types, Labels specialties) {
+
+}
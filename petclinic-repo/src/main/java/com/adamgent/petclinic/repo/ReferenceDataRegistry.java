@@ -0,0 +1,104 @@
+package com.adamgent.petclinic.repo;
+
+import static com.adamgent.petclinic.db.internal.tables.SpecialtiesTable.SPECIALTIES;
+import static com.adamgent.petclinic.db.internal.tables.TypesTable.TYPES;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.jooq.DSLContext;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * The types and specialties tables held in memory. They are tiny and almost never change
+ * so forms and label lookups read the current {@link ReferenceData} instead of querying.
+ * <p>
+ * The snapshot is loaded on first use, not when the bean is created, so the bean scope
+ * still builds while the database is unreachable (see DataSourceReadiness). It is
+ * replaced wholesale when a write to either table is reported through {@link DataChanges}
+ * (or {@link #refresh()} is called). Readers never lock and never see a half built
+ * snapshot.
+ */
+@Singleton
+public class ReferenceDataRegistry {
+
+	static final List<String> TABLES = List.of("types", "specialties");
+
+	private final DSLContext jooq;
+
+	private final DataVersionRepository dataVersionRepository;
+
+	private final AtomicReference<@Nullable ReferenceData> current = new AtomicReference<>();
+
+	@Inject
+	public ReferenceDataRegistry(DSLContext jooq, DataVersionRepository dataVersionRepository,
+			DataChanges dataChanges) {
+		super();
+		this.jooq = jooq;
+		this.dataVersionRepository = dataVersionRepository;
+		dataChanges.subscribe(table -> {
+			// nothing to replace before the first load
+			if (TABLES.contains(table) && current.get() != null) {
+				refresh();
+			}
+		});
+	}
+
+	public ReferenceData get() {
+		var c = current.get();
+		return c == null ? refresh() : c;
+	}
+
+	public Labels types() {
+		return get().types();
+	}
+
+	public Labels specialties() {
+		return get().specialties();
+	}
+
+	/**
+	 * Looks up a type for a write. An unknown name refreshes once first as the type may
+	 * have been added by something that does not report to {@link DataChanges} (another
+	 * instance, psql).
+	 * @param name exact type name.
+	 * @return the id or <code>-1</code> if there is no such type.
+	 */
+	public int typeId(String name) {
+		int id = types().id(name);
+		return id < 0 ? refresh().types().id(name) : id;
+	}
+
+	/**
+	 * Reloads if the tables have changed since the current snapshot was loaded.
+	 * @return the current snapshot after refreshing.
+	 */
+	public ReferenceData refresh() {
+		long version = dataVersionRepository.version(TABLES);
+		var c = current.get();
+		if (c != null && version == c.version()) {
+			return c;
+		}
+		/*
+		 * The version is read before the rows so at worst the snapshot is newer than its
+		 * version and the next refresh reloads it. Concurrent refreshes may finish out of
+		 * order so only a newer version replaces the current one.
+		 */
+		var loaded = load(version);
+		var result = current.accumulateAndGet(loaded, (o, n) -> o == null || n.version() > o.version() ? n : o);
+		return Objects.requireNonNull(result);
+	}
+
+	private ReferenceData load(long version) {
+		var types = Labels.of(jooq.select(TYPES.ID, TYPES.NAME).from(TYPES).where(TYPES.NAME.isNotNull())
+				.fetchMap(TYPES.ID, TYPES.NAME));
+		var specialties = Labels.of(jooq.select(SPECIALTIES.ID, SPECIALTIES.NAME).from(SPECIALTIES)
+				.where(SPECIALTIES.NAME.isNotNull()).fetchMap(SPECIALTIES.ID, SPECIALTIES.NAME));
+		return new ReferenceData(version, types, specialties);
+	}
+
+}
@@ -1,5 +1,12 @@
 package com.adamgent.petclinic.repo;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
 import javax.sql.DataSource;
 
 import org.jooq.DSLContext;
@@ -9,21 +16,65 @@ import com.adamgent.petclinic.config.ConfigBootstrap;
 import com.adamgent.petclinic.config.doma.DomaConfig;
 import com.adamgent.petclinic.config.jooq.JooqFactory;
 import com.adamgent.petclinic.config.sql.DataSourceConfig;
+import com.adamgent.petclinic.config.sql.DataSourceReadiness;
+import com.adamgent.petclinic.config.sql.RoutingDataSource;
 
 import io.avaje.inject.Bean;
 import io.avaje.inject.Factory;
+import io.avaje.inject.Primary;
+import jakarta.inject.Named;
 
 @Factory
 class RepoConfig {
 
+	static final String EXPORT = "export";
+
 	@Bean
 	Config config() {
 		return ConfigBootstrap.load("petclinic");
 	}
 
 	@Bean(autoCloseable = true)
+	@Primary
 	DataSource dataSource(Config config) {
-		return DataSourceConfig.of(config.asFunction().compose("database."::concat)).dataSource().get();
+		DataSource primary = DataSourceConfig.of(config.asFunction().compose("database."::concat)).pool().get();
+		List<String> names = config.property("database.replicas.names").map(RepoConfig::names).orElse(List.of());
+		if (names.isEmpty()) {
+			return primary;
+		}
+		var connectionTimeout = Duration
+				.ofMillis(config.property("database.replicas.connectionTimeout").map(Long::parseLong).get());
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		for (String name : names) {
+			Function<String, String> f = key -> config.property("database.replicas." + name + "." + key)
+					.or(() -> config.property("database." + key)).get();
+			replicas.put(name, DataSourceConfig.of(f).replicaPool(connectionTimeout).get());
+		}
+		var eject = Duration.ofMillis(config.property("database.replicas.ejectMillis").map(Long::parseLong).get());
+		return RoutingDataSource.of(primary, replicas, eject);
+	}
+
+	/*
+	 * Downloads hold a connection for as long as the client reads so they get their own
+	 * small pool instead of starving the main one. See VisitHistoryRepository.
+	 */
+	@Bean(autoCloseable = true)
+	@Named(EXPORT)
+	DataSource exportDataSource(Config config) {
+		return DataSourceConfig.of(config.asFunction().compose("database."::concat))
+				.smallPool(config.property("database.export.poolSize").map(Integer::parseInt).get()).get();
+	}
+
+	private static List<String> names(String csv) {
+		return Stream.of(csv.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+	}
+
+	/*
+	 * Ready when the primary is. Replicas that are not up yet are ejected on demand.
+	 */
+	@Bean
+	DataSourceReadiness dataSourceReadiness(DataSource dataSource) {
+		return DataSourceReadiness.of(dataSource instanceof RoutingDataSource r ? r.primary() : dataSource);
 	}
 
 	@Bean
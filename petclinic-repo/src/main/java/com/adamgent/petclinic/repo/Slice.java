@@ -0,0 +1,58 @@
+package com.adamgent.petclinic.repo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.repo.Cursor.Direction;
+
+/**
+ * A page of results from a keyset (seek) query along with the cursors to the adjacent
+ * pages.
+ */
+public record Slice<T> (List<T> items, @Nullable Cursor next, @Nullable Cursor prev) {
+
+	public static <T> Slice<T> empty() {
+		return new Slice<>(List.of(), null, null);
+	}
+
+	/**
+	 * Creates a slice from rows that were fetched with a limit of <code>size + 1</code>
+	 * so that we know if there is another page without a count query.
+	 * @param rows fetched rows. If the cursor is {@link Direction#PREV} the rows are
+	 * expected to be in descending order.
+	 * @param cursor the cursor used to fetch the rows or null if first page.
+	 * @param size page size.
+	 * @param key extracts the sort key.
+	 * @param id extracts the unique tie breaker.
+	 * @return slice in ascending order.
+	 */
+	public static <T> Slice<T> of(List<T> rows, @Nullable Cursor cursor, int size, Function<? super T, String> key,
+			ToLongFunction<? super T> id) {
+		boolean backward = cursor != null && cursor.direction() == Direction.PREV;
+		boolean more = rows.size() > size;
+		List<T> items = new ArrayList<>(more ? rows.subList(0, size) : rows);
+		if (items.isEmpty()) {
+			return empty();
+		}
+		if (backward) {
+			Collections.reverse(items);
+		}
+		T first = items.get(0);
+		T last = items.get(items.size() - 1);
+		Cursor next = null;
+		Cursor prev = null;
+		if (backward || more) {
+			next = Cursor.next(key.apply(last), id.applyAsLong(last));
+		}
+		if (backward ? more : cursor != null) {
+			prev = Cursor.prev(key.apply(first), id.applyAsLong(first));
+		}
+		return new Slice<>(List.copyOf(items), next, prev);
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.adamgent.petclinic.repo;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.seasar.doma.Domain;
+
+/**
+ * A vet's specialty names read from one aggregated column so vets and their specialties
+ * come back from one query. The vet_list view joins the names with the unit separator
+ * (<code>chr(31)</code>).
+ */
+@Domain(valueType = String.class, factoryMethod = "of", accessorMethod = "value")
+public record Specialties(List<String> names) {
+
+	static final char SEPARATOR = '\u001f';
+
+	private static final Pattern SPLIT = Pattern.compile(Pattern.quote(String.valueOf(SEPARATOR)));
+
+	private static final Specialties EMPTY = new Specialties(List.of());
+
+	public Specialties {
+		names = List.copyOf(names);
+	}
+
+	public static Specialties of(String value) {
+		if (value.isEmpty()) {
+			return EMPTY;
+		}
+		return new Specialties(List.of(SPLIT.split(value)));
+	}
+
+	public boolean isEmpty() {
+		return names.isEmpty();
+	}
+
+	/**
+	 * @return the names as the vet_list view joins them.
+	 */
+	public String value() {
+		return String.join(String.valueOf(SEPARATOR), names);
+	}
+
+}
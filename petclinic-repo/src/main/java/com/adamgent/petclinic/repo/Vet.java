@@ -1,13 +1,29 @@
 package com.adamgent.petclinic.repo;
 
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.seasar.doma.Column;
 import org.seasar.doma.Entity;
 import org.seasar.doma.GeneratedValue;
 import org.seasar.doma.GenerationType;
 import org.seasar.doma.Id;
 
+/**
+ * A vet row of the vet_list view. Specialties are read only, they are written through
+ * vet_specialties.
+ */
 @Entity
 public record Vet(@GeneratedValue(strategy = GenerationType.IDENTITY) @Id long id, //
-		String firstName, //
-		String lastName) implements Person {
+		@Nullable String firstName, //
+		@Nullable String lastName, //
+		@Column(insertable = false, updatable = false) Specialties specialties) implements Person {
+
+	/**
+	 * @return the last name as the vet queries sort and seek on it.
+	 */
+	public String sortName() {
+		return Objects.requireNonNullElse(lastName, "");
+	}
 
 }
@@ -1,10 +1,14 @@
 package com.adamgent.petclinic.repo;
 
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.seasar.doma.Dao;
 import org.seasar.doma.Select;
 import org.seasar.doma.Sql;
+import org.seasar.doma.SelectType;
 
 import com.adamgent.petclinic.config.doma.DomaSupport;
 
@@ -12,12 +16,72 @@ import com.adamgent.petclinic.config.doma.DomaSupport;
 @DomaSupport
 public interface VetRepository {
 
+	/*
+	 * The vet_list view aggregates specialties per row in the same statement, only for
+	 * the rows that survive a LIMIT.
+	 */
 	@Sql("""
-				select * from vets
+			select * from vet_list v
+			order by coalesce(v.last_name, ''), v.id
 			""")
 	@Select
 	List<Vet> findAll();
 
+	/**
+	 * Same as {@link #findAll()} but rows are mapped as the stream is consumed. The
+	 * stream is closed when the function returns. Rows are only fetched incrementally
+	 * inside a transaction so call it through {@link LazyQueries#forEachVet}.
+	 * @param <R> result of the function.
+	 * @param mapper consumes the stream.
+	 * @return the function's result.
+	 */
+	@Sql("""
+			select * from vet_list v
+			order by coalesce(v.last_name, ''), v.id
+			""")
+	@Select(fetchSize = 256, strategy = SelectType.STREAM)
+	<R> R streamAll(Function<Stream<Vet>, R> mapper);
+
+	/*
+	 * Seek queries on the (coalesce(last_name, ''), id) index. We never use OFFSET so
+	 * every page costs the same regardless of how deep it is. The name is coalesced as a
+	 * row comparison with a NULL is never true, which would make those vets unreachable.
+	 */
+	@Sql("""
+			select * from vet_list v
+			where
+			/*%if lastName != null */
+			  (coalesce(v.last_name, ''), v.id) > (/* lastName */'a', /* id */0)
+			/*%end*/
+			order by coalesce(v.last_name, ''), v.id
+			limit /* limit */10
+			""")
+	@Select
+	List<Vet> findAfter(@Nullable String lastName, long id, int limit);
+
+	@Sql("""
+			select * from vet_list v
+			where (coalesce(v.last_name, ''), v.id) < (/* lastName */'a', /* id */0)
+			order by coalesce(v.last_name, '') desc, v.id desc
+			limit /* limit */10
+			""")
+	@Select
+	List<Vet> findBefore(String lastName, long id, int limit);
+
+	default Slice<Vet> findPage(@Nullable Cursor cursor, int size) {
+		List<Vet> rows;
+		if (cursor == null) {
+			rows = findAfter(null, 0, size + 1);
+		}
+		else {
+			rows = switch (cursor.direction()) {
+				case NEXT -> findAfter(cursor.key(), cursor.id(), size + 1);
+				case PREV -> findBefore(cursor.key(), cursor.id(), size + 1);
+			};
+		}
+		return Slice.of(rows, cursor, size, Vet::sortName, Vet::id);
+	}
+
 }
 
 // @Singleton
@@ -0,0 +1,25 @@
+package com.adamgent.petclinic.repo;
+
+import java.time.LocalDate;
+
+import org.seasar.doma.Entity;
+import org.seasar.doma.GeneratedValue;
+import org.seasar.doma.GenerationType;
+import org.seasar.doma.Id;
+import org.seasar.doma.Table;
+
+@Entity
+@Table(name = "visits")
+public record Visit(@GeneratedValue(strategy = GenerationType.IDENTITY) @Id long id, //
+		long petId, //
+		LocalDate visitDate, //
+		String description) {
+
+	/*
+	 * Doma only fills in a generated id when the current one is null or negative.
+	 */
+	public static Visit of(long petId, LocalDate visitDate, String description) {
+		return new Visit(-1, petId, visitDate, description);
+	}
+
+}
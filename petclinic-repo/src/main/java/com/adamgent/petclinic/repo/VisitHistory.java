@@ -0,0 +1,19 @@
+package com.adamgent.petclinic.repo;
+
+import java.time.LocalDate;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A visit with its pet and owner as exported for auditing.
+ */
+public record VisitHistory(long id, //
+		@Nullable LocalDate visitDate, //
+		@Nullable String description, //
+		@Nullable Long petId, //
+		@Nullable String petName, //
+		@Nullable Long ownerId, //
+		@Nullable String ownerFirstName, //
+		@Nullable String ownerLastName) {
+
+}
@@ -0,0 +1,89 @@
+package com.adamgent.petclinic.repo;
+
+import static com.adamgent.petclinic.db.internal.tables.OwnersTable.OWNERS;
+import static com.adamgent.petclinic.db.internal.tables.PetsTable.PETS;
+import static com.adamgent.petclinic.db.internal.tables.VisitsTable.VISITS;
+
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Records;
+import org.jooq.impl.DSL;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.jooq.JooqFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+/**
+ * Streams every visit without holding them in memory. It is an audit record so visits
+ * without a pet, or whose pet has no owner, are included with null ids. The query runs in
+ * a read only transaction so the postgres driver uses a server side cursor and only has
+ * <code>fetchSize</code> rows on the heap at a time.
+ * <p>
+ * A download keeps its connection and transaction for as long as the client takes to read
+ * it. So downloads use the <code>export</code> pool of
+ * <code>database.export.poolSize</code> connections (see RepoConfig) instead of starving
+ * the main pool, and a transaction left idle for <code>database.export.idleTimeout</code>
+ * milliseconds (a client that stopped reading) is ended by the database so it does not
+ * hold back vacuum.
+ */
+@Singleton
+public class VisitHistoryRepository {
+
+	private final DSLContext jooq;
+
+	private final long idleTimeout;
+
+	@Inject
+	public VisitHistoryRepository(@Named(RepoConfig.EXPORT) DataSource dataSource, Config config) {
+		super();
+		this.jooq = JooqFactory.provideDSLContext(JooqFactory.provideJOOQConfig(config, dataSource));
+		this.idleTimeout = config.property("database.export.idleTimeout").map(Long::parseLong).get();
+	}
+
+	/**
+	 * Calls the action for each visit in id order. The action runs while the cursor is
+	 * open so a slow consumer (e.g. a client reading a download) slows down fetching
+	 * instead of rows piling up.
+	 * @param fetchSize rows per round trip.
+	 * @param action called for each row.
+	 * @return number of rows.
+	 */
+	public long forEach(int fetchSize, Consumer<? super VisitHistory> action) {
+		return jooq.transactionResult(tx -> {
+			var dsl = DSL.using(tx);
+			dsl.execute("set transaction read only");
+			dsl.execute("set local idle_in_transaction_session_timeout = " + idleTimeout);
+			long count = 0;
+			try (var cursor = dsl
+					.select(id(VISITS.ID), VISITS.VISIT_DATE, VISITS.DESCRIPTION, id(PETS.ID), PETS.NAME, id(OWNERS.ID),
+							OWNERS.FIRST_NAME, OWNERS.LAST_NAME) //
+					.from(VISITS) //
+					.leftJoin(PETS).on(PETS.ID.eq(VISITS.PET_ID)) //
+					.leftJoin(OWNERS).on(OWNERS.ID.eq(PETS.OWNER_ID)) //
+					.orderBy(VISITS.ID) //
+					.fetchSize(fetchSize) //
+					.fetchLazy()) {
+				var mapper = Records.mapping(VisitHistory::new);
+				for (var r : cursor) {
+					action.accept(mapper.map(r));
+					count++;
+				}
+			}
+			return count;
+		});
+	}
+
+	// null for the outer joined tables
+	private static Field<@Nullable Long> id(Field<Integer> field) {
+		return field.convertFrom(i -> i == null ? null : i.longValue());
+	}
+
+}
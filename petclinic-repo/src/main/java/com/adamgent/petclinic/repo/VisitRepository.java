@@ -0,0 +1,36 @@
+package com.adamgent.petclinic.repo;
+
+import java.util.List;
+
+import org.seasar.doma.BatchInsert;
+import org.seasar.doma.Dao;
+import org.seasar.doma.Insert;
+import org.seasar.doma.Select;
+import org.seasar.doma.Sql;
+import org.seasar.doma.jdbc.BatchResult;
+import org.seasar.doma.jdbc.Result;
+
+import com.adamgent.petclinic.config.doma.DomaSupport;
+
+/**
+ * Visits are written through {@link VisitWriter} which batches concurrent inserts.
+ */
+@Dao
+@DomaSupport
+public interface VisitRepository {
+
+	@Insert
+	Result<Visit> insert(Visit visit);
+
+	@BatchInsert
+	BatchResult<Visit> insertAll(List<Visit> visits);
+
+	@Sql("""
+			select exists (
+			  select 1 from pets where id = /* petId */1 and owner_id = /* ownerId */1
+			)
+			""")
+	@Select
+	boolean petBelongsTo(long ownerId, long petId);
+
+}
@@ -0,0 +1,160 @@
+package com.adamgent.petclinic.repo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.seasar.doma.jdbc.tx.TransactionManager;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.doma.DomaConfig;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Group commit for visits. Concurrent inserts are collected by a single writer thread
+ * into batches of up to <code>database.batch.size</code> rows, waiting at most
+ * <code>database.batch.maxWait</code> milliseconds for a batch to fill, and each batch is
+ * one JDBC batch in one transaction. Under load many callers share one commit (one fsync)
+ * instead of paying for their own.
+ */
+@Singleton
+public class VisitWriter implements AutoCloseable {
+
+	private final VisitRepository visits;
+
+	private final TransactionManager transactions;
+
+	private final DataChanges dataChanges;
+
+	private final int batchSize;
+
+	private final long maxWaitNanos;
+
+	private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+	private final Thread thread;
+
+	private volatile boolean closed;
+
+	record Pending(Visit visit, CompletableFuture<Visit> result) {
+	}
+
+	@Inject
+	public VisitWriter(DomaConfig domaConfig, DataChanges dataChanges, Config config) {
+		super();
+		var tx = domaConfig.withLocalTransactions();
+		this.visits = new VisitRepositoryImpl(tx);
+		this.transactions = tx.getTransactionManager();
+		this.dataChanges = dataChanges;
+		this.batchSize = config.property("database.batch.size").map(Integer::parseInt).get();
+		this.maxWaitNanos = TimeUnit.MILLISECONDS
+				.toNanos(config.property("database.batch.maxWait").map(Long::parseLong).get());
+		this.thread = new Thread(this::run, "visit-writer");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Queues a visit for the next batch.
+	 * @param visit new visit. The id is ignored.
+	 * @return completes with the inserted visit (with its id) once the batch has
+	 * committed.
+	 */
+	public CompletableFuture<Visit> insert(Visit visit) {
+		var pending = new Pending(visit, new CompletableFuture<>());
+		queue.add(pending);
+		if (closed && queue.remove(pending)) {
+			pending.result.completeExceptionally(new IllegalStateException("closed"));
+		}
+		return pending.result;
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		closed = true;
+		thread.join(TimeUnit.SECONDS.toMillis(10));
+	}
+
+	private void run() {
+		List<Pending> batch = new ArrayList<>(batchSize);
+		try {
+			while (!closed || !queue.isEmpty()) {
+				Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + maxWaitNanos;
+				while (batch.size() < batchSize) {
+					queue.drainTo(batch, batchSize - batch.size());
+					long wait = deadline - System.nanoTime();
+					if (batch.size() >= batchSize || wait <= 0) {
+						break;
+					}
+					Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				write(batch);
+				batch.clear();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			batch.addAll(queue);
+			batch.forEach(p -> p.result.completeExceptionally(new IllegalStateException("closed")));
+		}
+	}
+
+	private void write(List<Pending> batch) {
+		List<Visit> inserted;
+		try {
+			inserted = transactions
+					.required(() -> visits.insertAll(batch.stream().map(Pending::visit).toList()).getEntities());
+		}
+		catch (RuntimeException e) {
+			/*
+			 * One bad row (say the pet was just deleted) fails the whole batch so fall
+			 * back to one transaction per row and only fail the callers that are at
+			 * fault.
+			 */
+			if (batch.size() == 1) {
+				batch.get(0).result.completeExceptionally(e);
+				return;
+			}
+			writeEach(batch);
+			return;
+		}
+		dataChanges.changed("visits");
+		for (int i = 0; i < batch.size(); i++) {
+			batch.get(i).result.complete(inserted.get(i));
+		}
+	}
+
+	private void writeEach(List<Pending> batch) {
+		boolean changed = false;
+		for (var pending : batch) {
+			try {
+				var visit = transactions.required(() -> visits.insert(pending.visit).getEntity());
+				changed = true;
+				pending.result.complete(visit);
+			}
+			catch (RuntimeException e) {
+				pending.result.completeExceptionally(e);
+			}
+		}
+		if (changed) {
+			dataChanges.changed("visits");
+		}
+	}
+
+}
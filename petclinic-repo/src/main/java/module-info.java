@@ -1,5 +1,9 @@
 module com.adamgent.petclinic.repo {
 	exports com.adamgent.petclinic.repo;
+	/*
+	 * Doma reflectively reads entity fields
+	 */
+	opens com.adamgent.petclinic.repo to org.seasar.doma.core;
 	
 	requires static org.eclipse.jdt.annotation;
 	requires com.adamgent.petclinic.config;
@@ -1,11 +1,40 @@
 package com.adamgent.petclinic.repo;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.jooq.DSLContext;
+import org.jooq.ExecuteListener;
 import org.junit.jupiter.api.Test;
 
 import com.adamgent.petclinic.config.Config;
 import com.adamgent.petclinic.config.ConfigProvider;
+import com.adamgent.petclinic.config.sql.CsvImport;
+import com.adamgent.petclinic.config.sql.DataSourceReadiness;
+import com.adamgent.petclinic.config.sql.RoutingDataSource;
 
 import io.avaje.inject.BeanScope;
 
@@ -21,4 +50,459 @@ public class RepositoriesTest {
 		}
 	}
 
+	@Test
+	public void testVetPaging() {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			var vr = di.get(VetRepository.class);
+			int size = 4;
+			var all = vr.findAll();
+
+			var first = vr.findPage(null, size);
+			assertEquals(size, first.items().size());
+			assertNull(first.prev());
+			assertNotNull(first.next());
+
+			var second = vr.findPage(Cursor.decode(first.next().encode()), size);
+			assertEquals(all.size() - size, second.items().size());
+			assertNull(second.next());
+			assertNotNull(second.prev());
+
+			var back = vr.findPage(second.prev(), size);
+			assertEquals(first.items(), back.items());
+			assertNull(back.prev());
+		}
+	}
+
+	@Test
+	public void testVetPagingWithNullNames() throws Exception {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build();
+				var c = di.get(DataSource.class).getConnection();
+				var s = c.createStatement()) {
+			var vr = di.get(VetRepository.class);
+			s.executeUpdate("insert into vets (first_name, last_name) values ('Nullname', null), ('Nullname', null)");
+			try {
+				var all = vr.findAll();
+				int size = 1;
+				List<Vet> forward = new ArrayList<>();
+				Slice<Vet> page = vr.findPage(null, size);
+				forward.addAll(page.items());
+				while (page.next() != null) {
+					page = vr.findPage(page.next(), size);
+					forward.addAll(page.items());
+				}
+				assertEquals(all, forward);
+
+				List<Vet> backward = new ArrayList<>(page.items());
+				while (page.prev() != null) {
+					page = vr.findPage(page.prev(), size);
+					backward.addAll(0, page.items());
+				}
+				assertEquals(all, backward);
+			}
+			finally {
+				s.executeUpdate("delete from vets where first_name = 'Nullname' and last_name is null");
+			}
+		}
+	}
+
+	@Test
+	public void testVetSpecialties() {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			var vr = di.get(VetRepository.class);
+			var vets = vr.findAll();
+			var douglas = vets.stream().filter(v -> v.lastName().equals("Douglas")).findFirst().orElseThrow();
+			assertEquals(List.of("dentistry", "surgery"), douglas.specialties().names());
+			var carter = vets.stream().filter(v -> v.lastName().equals("Carter")).findFirst().orElseThrow();
+			assertTrue(carter.specialties().isEmpty());
+			assertEquals(vets.stream().filter(v -> v.lastName().equals("Douglas")).toList(), vr
+					.findPage(null, vets.size()).items().stream().filter(v -> v.lastName().equals("Douglas")).toList());
+		}
+	}
+
+	@Test
+	public void testLazyVets() {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			var all = di.get(VetRepository.class).findAll();
+			var lazyQueries = di.get(LazyQueries.class);
+
+			List<Vet> rows = new ArrayList<>();
+			try (var vets = lazyQueries.vets()) {
+				vets.forEach(rows::add);
+				assertThrows(IllegalStateException.class, vets::iterator);
+			}
+			assertEquals(all, rows);
+
+			// stopping early and closing ends the transaction so the thread can open
+			// another
+			try (var vets = lazyQueries.vets()) {
+				assertEquals(all.get(0), vets.iterator().next());
+			}
+			try (var vets = lazyQueries.vets()) {
+				assertEquals(all.get(0), vets.iterator().next());
+			}
+
+			List<Vet> each = new ArrayList<>();
+			lazyQueries.forEachVet(each::add);
+			assertEquals(all, each);
+		}
+	}
+
+	@Test
+	public void testOwnerSearch() {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			var or = di.get(OwnerRepository.class);
+
+			var davis = or.findPageByLastName("dA", null, 10);
+			assertEquals(2, davis.items().size());
+			assertTrue(davis.items().stream().allMatch(o -> o.lastName().equals("Davis")));
+			assertTrue(davis.items().stream().allMatch(o -> o.searchKey().equals("davis")));
+			assertEquals(List.of("Basil", "Iggy"), davis.items().stream().map(OwnerSummary::pets).toList());
+			assertNull(davis.next());
+
+			var first = or.findPageByLastName("da", null, 1);
+			assertEquals(1, first.items().size());
+			var second = or.findPageByLastName("da", first.next(), 1);
+			assertEquals(davis.items().get(1), second.items().get(0));
+			assertEquals(first.items(), or.findPageByLastName("da", second.prev(), 1).items());
+
+			assertEquals(10, or.findPageByLastName("", null, 100).items().size());
+			assertEquals("Jewel, Rosy", or.findPageByLastName("Rodriquez", null, 1).items().get(0).pets());
+			assertTrue(or.findPageByLastName("%", null, 10).items().isEmpty());
+		}
+	}
+
+	@Test
+	public void testOwnerDetailsIsOneStatement() {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			AtomicInteger statements = new AtomicInteger();
+			var jooq = di.get(DSLContext.class).configuration()
+					.derive(ExecuteListener.onExecuteStart(ctx -> statements.incrementAndGet())).dsl();
+			var repository = new OwnerDetailsRepository(jooq);
+
+			var owner = repository.findById(6).orElseThrow();
+			assertEquals(1, statements.get());
+			assertEquals("Coleman", owner.lastName());
+			assertEquals(List.of("Max", "Samantha"), owner.pets().stream().map(p -> p.name()).toList());
+			assertEquals("cat", owner.pets().get(0).type());
+			assertTrue(owner.pets().stream().allMatch(p -> p.visits().size() >= 2));
+
+			assertTrue(repository.findById(-1).isEmpty());
+			assertEquals(2, statements.get());
+		}
+	}
+
+	@Test
+	public void testReferenceData() throws Exception {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			var registry = di.get(ReferenceDataRegistry.class);
+			var types = registry.types();
+			int cat = types.id("cat");
+			assertTrue(cat > 0);
+			assertEquals("cat", types.name(cat));
+			assertEquals(-1, types.id("unicorn"));
+			assertNull(types.name(-1));
+			assertNull(types.name(Integer.MAX_VALUE));
+			assertTrue(registry.specialties().names().contains("radiology"));
+
+			var before = registry.get();
+			assertTrue(before == registry.refresh());
+
+			try (var c = di.get(DataSource.class).getConnection(); var s = c.createStatement()) {
+				s.executeUpdate("insert into types (name) values ('unicorn')");
+				try {
+					di.get(DataChanges.class).changed("types");
+					assertTrue(registry.get().version() > before.version());
+					assertTrue(registry.types().id("unicorn") > 0);
+					assertTrue(before.types().id("unicorn") < 0);
+				}
+				finally {
+					s.executeUpdate("delete from types where name = 'unicorn'");
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTypeIdRefreshesOnMiss() throws Exception {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build();
+				var c = di.get(DataSource.class).getConnection();
+				var s = c.createStatement()) {
+			var registry = di.get(ReferenceDataRegistry.class);
+			assertTrue(registry.typeId("cat") > 0);
+			// not reported through DataChanges, e.g. psql
+			s.executeUpdate("insert into types (name) values ('unicorn')");
+			try {
+				assertEquals(-1, registry.types().id("unicorn"));
+				int unicorn = registry.typeId("unicorn");
+				assertTrue(unicorn > 0);
+				assertEquals(-1, registry.typeId("dragon"));
+
+				var pet = di.get(PetRepository.class).insert(Pet.of("Sparkle", null, unicorn, 1));
+				assertTrue(pet.id() > 0);
+				assertTrue(di.get(PetRepository.class).ownerExists(1));
+				assertFalse(di.get(PetRepository.class).ownerExists(-1));
+			}
+			finally {
+				s.executeUpdate("delete from pets where type_id in (select id from types where name = 'unicorn')");
+				s.executeUpdate("delete from types where name = 'unicorn'");
+			}
+		}
+	}
+
+	@Test
+	public void testReferenceDataIsLoadedOnFirstUse() throws Exception {
+		Config config = ConfigProvider.get();
+		Config down = Config.builder().add(config.toMap())
+				.add("database.url", "jdbc:postgresql://localhost:1/petclinic").build();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, down).build()) {
+			// building the scope and the registry did not need the database
+			assertNotNull(di.get(ReferenceDataRegistry.class));
+			assertFalse(di.get(DataSourceReadiness.class).getAsBoolean());
+		}
+	}
+
+	@Test
+	public void testVisitWriterGroupsInserts() throws Exception {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			var writer = di.get(VisitWriter.class);
+			var date = LocalDate.of(2026, 1, 1);
+			List<CompletableFuture<Visit>> results = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				results.add(writer.insert(Visit.of(i % 2 + 1, date, "batch " + i)));
+			}
+			try {
+				var ids = results.stream().map(CompletableFuture::join).map(Visit::id).distinct().toList();
+				assertEquals(20, ids.size());
+				assertTrue(ids.stream().allMatch(id -> id > 0));
+
+				// a bad row only fails its own caller
+				var bad = writer.insert(Visit.of(-1, date, "batch bad"));
+				var good = writer.insert(Visit.of(1, date, "batch good"));
+				assertThrows(CompletionException.class, bad::join);
+				assertTrue(good.join().id() > 0);
+			}
+			finally {
+				try (var c = di.get(DataSource.class).getConnection(); var s = c.createStatement()) {
+					s.executeUpdate(
+							"delete from visits where visit_date = '2026-01-01' and description like 'batch %'");
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCsvImport() throws Exception {
+		Config config = ConfigProvider.get();
+		String owners = """
+				ref,first_name,last_name,address,city,telephone
+				a1,Ima,Importtest,1 Main St.,Madison,6085550100
+				a2,"Jo, Jr.",Importtest,2 Main St.,Madison,6085550101
+				""";
+		String pets = """
+				owner_ref,name,birth_date,type
+				a1,Rex,2020-01-01,dog
+				a1,Tom,2021-02-03,cat
+				a2,Polly,,bird
+				""";
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build();
+				var c = di.get(DataSource.class).getConnection();
+				var s = c.createStatement()) {
+			List<String> steps = new ArrayList<>();
+			var csvImport = CsvImport.of((step, count) -> steps.add(step));
+			try {
+				var result = csvImport.run(c, stream(owners), stream(pets));
+				assertEquals(new CsvImport.Result(2, 3), result);
+				assertTrue(steps.contains("pets inserted"));
+				try (var rs = s.executeQuery("""
+						select count(*) from pets p join owners o on o.id = p.owner_id
+						where o.last_name = 'Importtest'
+						""")) {
+					rs.next();
+					assertEquals(3, rs.getInt(1));
+				}
+
+				// an unknown owner ref rolls back the whole import
+				var e = assertThrows(SQLException.class,
+						() -> csvImport.run(c, stream(owners), stream(pets + "zz,Ghost,,dog\n")));
+				assertEquals("22000", e.getSQLState());
+				try (var rs = s.executeQuery("select count(*) from owners where last_name = 'Importtest'")) {
+					rs.next();
+					assertEquals(2, rs.getInt(1));
+				}
+			}
+			finally {
+				s.executeUpdate(
+						"delete from pets where owner_id in (select id from owners where last_name = 'Importtest')");
+				s.executeUpdate("delete from owners where last_name = 'Importtest'");
+			}
+		}
+	}
+
+	private static InputStream stream(String csv) {
+		return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testVisitHistoryStreams() throws Exception {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build();
+				var c = di.get(DataSource.class).getConnection();
+				var s = c.createStatement()) {
+			// pet_id and owner_id are nullable. The export must still include these
+			s.executeUpdate("insert into visits (pet_id, description) values (null, 'orphan visit')");
+			s.executeUpdate("insert into pets (name, type_id) values ('Stray', 1)");
+			s.executeUpdate("insert into visits (pet_id, description) "
+					+ "select id, 'orphan pet' from pets where name = 'Stray' and owner_id is null");
+			try {
+				var repository = di.get(VisitHistoryRepository.class);
+				List<VisitHistory> rows = new ArrayList<>();
+				long count = repository.forEach(2, rows::add);
+				assertEquals(rows.size(), count);
+				try (var rs = s.executeQuery("select count(*) from visits")) {
+					rs.next();
+					assertEquals(rs.getLong(1), count);
+				}
+				assertEquals(rows.stream().map(VisitHistory::id).sorted().toList(),
+						rows.stream().map(VisitHistory::id).toList());
+				var noPet = rows.stream().filter(v -> "orphan visit".equals(v.description())).findFirst().orElseThrow();
+				assertNull(noPet.petId());
+				assertNull(noPet.ownerId());
+				var noOwner = rows.stream().filter(v -> "orphan pet".equals(v.description())).findFirst().orElseThrow();
+				assertNotNull(noOwner.petId());
+				assertEquals("Stray", noOwner.petName());
+				assertNull(noOwner.ownerId());
+				assertTrue(rows.stream().filter(v -> v.ownerId() != null).allMatch(v -> v.ownerLastName() != null));
+			}
+			finally {
+				s.executeUpdate("delete from visits where description in ('orphan visit', 'orphan pet')");
+				s.executeUpdate("delete from pets where name = 'Stray' and owner_id is null");
+			}
+		}
+	}
+
+	@Test
+	public void testDataVersionBumpedOnWrite() throws Exception {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			var dv = di.get(DataVersionRepository.class);
+			var tables = List.of("vets");
+			long before = dv.version(tables);
+			try (var c = di.get(DataSource.class).getConnection(); var s = c.createStatement()) {
+				s.executeUpdate("update vets set last_name = last_name where id = 1");
+			}
+			assertTrue(dv.version(tables) > before);
+		}
+	}
+
+	@Test
+	public void testReplicaRouting() throws Exception {
+		Config config = ConfigProvider.get();
+		String url = config.property("database.url").get();
+		assertTrue(isReadOnly(replicas(config, Map.of("database.replicas.r1.url", url))));
+		// an unreachable replica is ejected and reads fall back to the primary
+		assertFalse(isReadOnly(
+				replicas(config, Map.of("database.replicas.r1.url", "jdbc:postgresql://localhost:1/petclinic"))));
+	}
+
+	@Test
+	public void testReplicaPinnedPerScope() throws Exception {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			var primary = di.get(DataSource.class);
+			var taken = List.of(new AtomicInteger(), new AtomicInteger());
+			var down = List.of(new AtomicBoolean(), new AtomicBoolean());
+			Map<String, DataSource> replicas = new LinkedHashMap<>();
+			replicas.put("r1", replica(primary, taken.get(0), down.get(0)));
+			replicas.put("r2", replica(primary, taken.get(1), down.get(1)));
+			var routing = RoutingDataSource.of(primary, replicas, Duration.ofMinutes(1));
+			// every connection of a scope comes from the replica its first one picked
+			int pinned = RoutingDataSource.readOnly(() -> {
+				for (int i = 0; i < 4; i++) {
+					routing.getConnection().close();
+				}
+				return taken.get(0).get() == 4 ? 0 : 1;
+			});
+			assertEquals(4, taken.get(pinned).get());
+			assertEquals(0, taken.get(1 - pinned).get());
+			// and moves to the other one only when it fails
+			taken.forEach(t -> t.set(0));
+			RoutingDataSource.readOnly(() -> {
+				routing.getConnection().close();
+				int first = taken.get(0).get() == 1 ? 0 : 1;
+				down.get(first).set(true);
+				for (int i = 0; i < 3; i++) {
+					routing.getConnection().close();
+				}
+				assertEquals(1, taken.get(first).get());
+				assertEquals(3, taken.get(1 - first).get());
+				return null;
+			});
+		}
+	}
+
+	/*
+	 * A replica that hands out primary connections, counting them, unless it is down.
+	 */
+	private static DataSource replica(DataSource target, AtomicInteger taken, AtomicBoolean down) {
+		return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+				new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+					if (method.getName().equals("getConnection")) {
+						if (down.get()) {
+							throw new SQLException("down");
+						}
+						taken.incrementAndGet();
+					}
+					try {
+						return method.invoke(target, args);
+					}
+					catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+
+	private static Config replicas(Config config, Map<String, String> replica) {
+		return Config.builder().add(config.toMap()).add("database.replicas.names", "r1").add(replica).build();
+	}
+
+	/*
+	 * Whether a connection taken in a read only scope came from the replica pool.
+	 */
+	private static boolean isReadOnly(Config config) throws Exception {
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			var dataSource = di.get(DataSource.class);
+			assertTrue(dataSource instanceof RoutingDataSource);
+			try (var c = dataSource.getConnection()) {
+				assertFalse(c.isReadOnly());
+			}
+			return RoutingDataSource.readOnly(() -> {
+				try (var c = dataSource.getConnection()) {
+					return c.isReadOnly();
+				}
+			});
+		}
+	}
+
+	@Test
+	public void testDataSourceWarmsUp() throws Exception {
+		Config config = ConfigProvider.get();
+		try (BeanScope di = BeanScope.builder().bean(Config.class, config).build()) {
+			var readiness = di.get(DataSourceReadiness.class);
+			long deadline = System.currentTimeMillis() + 10_000;
+			while (!readiness.getAsBoolean() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			assertTrue(readiness.getAsBoolean());
+		}
+	}
+
 }
@@ -0,0 +1,34 @@
+#!/bin/bash
+# Fast start distribution in target/dist:
+#   runtime/       jlink image trimmed to the JDK modules the app uses (with a base CDS archive)
+#   petclinic.jsa  AppCDS archive from a training run (config, bean scope, first render)
+# The training run needs the database just like the build does.
+# Dependencies stay on the (manifest) class path as some are automatic modules which jlink
+# cannot link. Modules only reached reflectively are added explicitly.
+set -e
+_version=$(grep "<version>" pom.xml | head -n1 | sed -e "s/<version>//g" -e "s/<\/version>//g" -e "s/ //g")
+_artifact=$(grep "<artifactId>" pom.xml | sed -n '2 p' | sed -e "s/<artifactId>//g" -e "s/<\/artifactId>//g" -e "s/ //g")
+_jar=target/$_artifact-$_version.jar
+_dist=target/dist
+
+if [[ ! -f "$_jar" ]]; then
+  mvn -q install -DskipTests=true
+fi
+
+rm -rf "$_dist"
+mkdir -p "$_dist"
+
+mvn -q dependency:build-classpath -Dmdep.outputFile="$_dist/classpath.txt"
+_modules=$(jdeps --ignore-missing-deps --print-module-deps --multi-release 17 \
+  --module-path "$(cat $_dist/classpath.txt):$_jar" --add-modules ALL-MODULE-PATH)
+echo "JDK modules: $_modules"
+
+jlink --add-modules "$_modules,java.logging,jdk.unsupported,jdk.crypto.ec" \
+  --strip-debug --no-header-files --no-man-pages --compress=2 \
+  --output "$_dist/runtime"
+# base archive for the JDK classes which the dynamic archive below is layered on
+"$_dist/runtime/bin/java" -Xshare:dump > /dev/null
+
+"$_dist/runtime/bin/java" -XX:ArchiveClassesAtExit="$_dist/petclinic.jsa" -jar "$_jar" TRAIN
+
+echo "Run with: $_dist/runtime/bin/java -XX:SharedArchiveFile=$_dist/petclinic.jsa -jar $_jar"
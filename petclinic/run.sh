@@ -9,7 +9,12 @@ while [[ "$_result" == "2" ]] ; do
   echo "Purging JStache Models"
   find target/classes -name \*Html.class -exec rm {} \;
   mvnd install -DskipTests=true -Dmaven.javadoc.skip=true -Dmaven.source.skip=true
-  java -jar target/$_artifact-$_version.jar
+  if [[ -f target/dist/petclinic.jsa ]]; then
+    # see dist.sh. A stale archive (jar rebuilt) is ignored by the JVM.
+    target/dist/runtime/bin/java -XX:SharedArchiveFile=target/dist/petclinic.jsa -Xshare:auto -jar target/$_artifact-$_version.jar
+  else
+    java -jar target/$_artifact-$_version.jar
+  fi
   ## No we wait for planned shutdown via /shutdown
   _result=$?
   echo "Exit code: $_result"
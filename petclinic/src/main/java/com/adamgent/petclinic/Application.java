@@ -1,37 +1,104 @@
 package com.adamgent.petclinic;
 
+import java.time.Duration;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
 import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.jooby.AssetCache;
+import com.adamgent.petclinic.config.jooby.AssetManifest;
 import com.adamgent.petclinic.config.jooby.AvajeInjectModule;
+import com.adamgent.petclinic.config.jooby.GracefulShutdown;
+import com.adamgent.petclinic.config.jooby.JStachioStreamModule;
+import com.adamgent.petclinic.config.jooby.PrecompressedAssetHandler;
+import com.adamgent.petclinic.config.jooby.ReadinessGate;
+import com.adamgent.petclinic.config.jooby.RouteMetrics;
+import com.adamgent.petclinic.config.jooby.VirtualThreadModule;
 import com.adamgent.petclinic.config.jooby.WebJar;
+import com.adamgent.petclinic.config.sql.DataSourceReadiness;
+import com.adamgent.petclinic.web.DataVersionFilter;
+import com.adamgent.petclinic.web.HtmxFilter;
+import com.adamgent.petclinic.web.PageCacheFilter;
+import com.adamgent.petclinic.web.ReplicaFilter;
 
 import io.avaje.inject.BeanScope;
 import io.jooby.Jooby;
+import io.jooby.Server;
 import io.jooby.annotation.Path;
 import io.jooby.handler.AssetSource;
 import io.jooby.jstachio.JStachioModule;
 
 public class Application extends Jooby {
 
-	Application() {
+	private final GracefulShutdown shutdown;
+
+	private volatile @Nullable Server server;
+
+	Application(GracefulShutdown shutdown) {
+		this.shutdown = shutdown;
 	}
 
 	public static Application of(Config config) {
 		BeanScope beanScope = BeanScope.builder().bean(Config.class, config).build();
-		Application app = new Application();
+		var metrics = RouteMetrics.of(config.property("web.metrics.path").get());
+		var shutdown = GracefulShutdown.of(
+				Duration.ofMillis(config.property("shutdown.drainTimeout").map(Long::parseLong).get()),
+				metrics::inFlight);
+		Application app = new Application(shutdown);
 		app.install(AvajeInjectModule.of(beanScope));
+		app.install(shutdown);
+		app.install(metrics);
+		app.install(VirtualThreadModule.of(config.property("web.executor").map(VirtualThreadModule.Mode::of).get()));
 		app.install(new JStachioModule());
 
 		ClassLoader loader = Application.class.getClassLoader();
+		AssetManifest manifest = AssetManifest.of(loader);
+		var render = JStachioStreamModule.of(config.property("web.render.threshold").map(Integer::parseInt).get(),
+				HtmxFilter::select, Map.of("assets", manifest));
+		app.install(render);
+		AssetCache cache = AssetCache.of(config.asFunction().compose("web.assets."::concat));
 
 		WebJar.builder() //
 				.add("org.webjars.npm", "font-awesome") //
 				.add("org.webjars.npm", "bootstrap") //
-				.install(app, loader);
-		app.assets("/static/*", AssetSource.create(loader, "/static"));
+				.add("org.webjars.npm", "htmx.org") //
+				.cache(cache) //
+				.install(app, manifest);
+		manifest.mount("/static/", "static/");
+		app.get("/static/*", new PrecompressedAssetHandler(AssetSource.create(loader, "/static"), manifest, cache));
+		// everything below needs the database
+		app.install(ReadinessGate.of(config.property("web.readiness.path").get(),
+				beanScope.get(DataSourceReadiness.class)));
+		app.use(beanScope.get(ReplicaFilter.class));
+		app.use(beanScope.get(HtmxFilter.class));
+		app.use(beanScope.get(DataVersionFilter.class));
+		app.use(beanScope.get(PageCacheFilter.class));
+		// innermost so the filters above also wrap rendering e.g. the replica scope for
+		// templates that iterate a LazyResult
+		app.use(render.filter());
 		var controllers = beanScope.listByAnnotation(Path.class);
 		controllers.forEach(app::mvc);
 		app.onStop(beanScope);
 		return app;
 	}
 
+	@Override
+	public Server start() {
+		Server s = super.start();
+		this.server = s;
+		Runtime.getRuntime().addShutdownHook(shutdown.hook(s));
+		return s;
+	}
+
+	/**
+	 * Stops taking requests, waits for the in flight ones and then stops the server.
+	 */
+	public void shutdown() {
+		Server s = server;
+		if (s != null) {
+			shutdown.shutdown(s);
+		}
+	}
+
 }
@@ -1,33 +1,71 @@
 package com.adamgent.petclinic;
 
-import java.util.concurrent.Executors;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 
 import com.adamgent.petclinic.config.Config;
 import com.adamgent.petclinic.config.ConfigBootstrap;
+import com.adamgent.petclinic.web.ExportController;
+import com.adamgent.petclinic.web.ImportHandler;
+import com.adamgent.petclinic.web.VetController;
+import com.adamgent.petclinic.web.VetsHtml;
+
+import io.jstach.jstachio.JStachio;
+import io.jstach.jstachio.Output;
 
 public class Main {
 
 	public static void main(String[] args) {
+		/*
+		 * Jooby's hook stops the server immediately. Application installs a draining one
+		 * instead.
+		 */
+		System.setProperty("jooby.useShutdownHook", "false");
 		Config config = ConfigBootstrap.load("petclinic");
 		Application app = Application.of(config);
+		if (args.length > 0 && args[0].equals("TRAIN")) {
+			train(app);
+			return;
+		}
 		if (config.property("shutdown.endpoint").toBoolean()) {
 			app.get("/shutdown", (ctx) -> {
-				Executors.newSingleThreadExecutor().execute(Main::shutdown);
+				Thread t = new Thread(() -> shutdown(app), "shutdown-endpoint");
+				t.start();
 				return """
 						SHUTTING DOWN
 						""";
 			});
 		}
+		if (config.property("export.endpoint").toBoolean()) {
+			app.mvc(app.require(ExportController.class));
+		}
+		if (config.property("import.endpoint").toBoolean()) {
+			app.post("/admin/import", app.require(ImportHandler.class));
+		}
 		app.start();
 	}
 
-	static synchronized void shutdown() {
+	/*
+	 * AppCDS training run for dist.sh: config, bean scope and a first render. The archive
+	 * is written when the JVM exits.
+	 */
+	static void train(Application app) {
+		VetsHtml html = app.require(VetController.class).showVetList(null);
+		var out = Output.EncodedOutput.of(OutputStream.nullOutputStream(), StandardCharsets.UTF_8);
 		try {
-			Thread.sleep(20);
+			JStachio.of().write(html, out);
 		}
-		catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
+		System.out.println("TRAINED");
+		System.exit(0);
+	}
+
+	static void shutdown(Application app) {
+		app.shutdown();
 		System.out.println("SHUTTING DOWN with exit code 2");
 		System.exit(2);
 	}
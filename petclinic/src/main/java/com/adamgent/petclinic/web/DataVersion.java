@@ -0,0 +1,23 @@
+package com.adamgent.petclinic.web;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET route whose response only depends on the given tables so that it can be
+ * revalidated with an ETag.
+ *
+ * @see DataVersionFilter
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface DataVersion {
+
+	/**
+	 * @return table names as tracked in <code>data_versions</code>.
+	 */
+	String[] value();
+
+}
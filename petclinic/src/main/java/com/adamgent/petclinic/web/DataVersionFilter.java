@@ -0,0 +1,94 @@
+package com.adamgent.petclinic.web;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.config.jooby.BuildId;
+import com.adamgent.petclinic.repo.DataVersionRepository;
+
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.StatusCode;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Conditional GET for {@link DataVersion} routes. The ETag is the {@link BuildId} plus
+ * the sum of the table versions, which lives in the database, so every instance of a
+ * release agrees on it and a release with new templates or asset URLs invalidates it. It
+ * is checked before the route runs, so a 304 never touches the repositories. htmx
+ * fragments get their own tag. The version is left in the {@link #VERSION} attribute for
+ * {@link PageCacheFilter}.
+ */
+@Singleton
+public class DataVersionFilter implements Route.Filter {
+
+	/**
+	 * Context attribute with the <code>Long</code> data version the ETag was made from.
+	 */
+	public static final String VERSION = DataVersionFilter.class.getName() + ".version";
+
+	private final DataVersionRepository dataVersionRepository;
+
+	private final String build = BuildId.read(DataVersionFilter.class.getClassLoader());
+
+	private final Map<Method, List<String>> tables = new ConcurrentHashMap<>();
+
+	@Inject
+	public DataVersionFilter(DataVersionRepository dataVersionRepository) {
+		super();
+		this.dataVersionRepository = dataVersionRepository;
+	}
+
+	@Override
+	public Route.Handler apply(Route.Handler next) {
+		return ctx -> {
+			List<String> t = tables(ctx);
+			if (t.isEmpty()) {
+				return next.apply(ctx);
+			}
+			long version = dataVersionRepository.version(t);
+			ctx.setAttribute(VERSION, version);
+			String etag = "\"" + build + "-" + version + HtmxFilter.variant(ctx) + "\"";
+			ctx.setResponseHeader("ETag", etag);
+			ctx.setResponseHeader("Cache-Control", "no-cache");
+			if (matches(ctx.header("If-None-Match").valueOrNull(), etag)) {
+				return ctx.send(StatusCode.NOT_MODIFIED);
+			}
+			return next.apply(ctx);
+		};
+	}
+
+	private List<String> tables(Context ctx) {
+		String method = ctx.getMethod();
+		if (!method.equals("GET") && !method.equals("HEAD")) {
+			return List.of();
+		}
+		Method mvc = ctx.getRoute().getMvcMethod();
+		if (mvc == null) {
+			return List.of();
+		}
+		return tables.computeIfAbsent(mvc, m -> {
+			DataVersion dv = m.getAnnotation(DataVersion.class);
+			return dv == null ? List.of() : List.of(dv.value());
+		});
+	}
+
+	static boolean matches(@Nullable String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String c = candidate.trim();
+			if (c.equals("*") || c.equals(etag) || c.equals("W/" + etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
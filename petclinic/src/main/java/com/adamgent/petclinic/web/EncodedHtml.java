@@ -0,0 +1,47 @@
+package com.adamgent.petclinic.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import io.jstach.jstachio.Appender;
+import io.jstach.jstachio.Formatter;
+import io.jstach.jstachio.Output;
+
+/**
+ * Trusted HTML that was rendered once and is kept as UTF-8 bytes so that it can be copied
+ * straight to an encoded output without escaping or re-encoding.
+ */
+public final class EncodedHtml implements Formatter.Formattable {
+
+	private final String html;
+
+	private final byte[] utf8;
+
+	private EncodedHtml(String html) {
+		this.html = html;
+		this.utf8 = html.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public static EncodedHtml of(String html) {
+		return new EncodedHtml(html);
+	}
+
+	@Override
+	public <A extends Output<E>, E extends Exception> void format(Formatter formatter, Appender downstream, String path,
+			A out) throws E {
+		if (out instanceof Output.EncodedOutput<?> encoded && StandardCharsets.UTF_8.equals(encoded.charset())) {
+			@SuppressWarnings("unchecked")
+			var o = (Output.EncodedOutput<E>) encoded;
+			o.write(utf8);
+		}
+		else {
+			out.append(html);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return html;
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.adamgent.petclinic.web;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.Config.Property;
+import com.adamgent.petclinic.repo.VisitHistoryRepository;
+
+import io.jooby.Context;
+import io.jooby.annotation.GET;
+import io.jooby.annotation.Path;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Full visit history downloads for auditors. Rows go from the database cursor through a
+ * small write buffer to the chunked response one at a time so memory stays flat however
+ * many visits there are. A client that stops reading stops the query; a broken connection
+ * ends it.
+ * <p>
+ * No class level {@link Path} so the controller is not picked up with the others. Main
+ * only mounts it when <code>export.endpoint</code> is true.
+ */
+@Singleton
+public class ExportController {
+
+	private final VisitHistoryRepository visitHistoryRepository;
+
+	private final Property<Integer> fetchSize;
+
+	@Inject
+	public ExportController(VisitHistoryRepository visitHistoryRepository, Config config) {
+		super();
+		this.visitHistoryRepository = visitHistoryRepository;
+		this.fetchSize = config.property("web.export.fetchSize").map(Integer::parseInt);
+	}
+
+	@GET("/export/visits.csv")
+	public Context visitsCsv(Context ctx) throws Exception {
+		return export(ctx, ExportFormat.csv);
+	}
+
+	@GET("/export/visits.ndjson")
+	public Context visitsNdjson(Context ctx) throws Exception {
+		return export(ctx, ExportFormat.ndjson);
+	}
+
+	private Context export(Context ctx, ExportFormat format) throws Exception {
+		ctx.setResponseHeader("Content-Disposition", "attachment; filename=\"visits." + format.name() + "\"");
+		return ctx.responseStream(format.mediaType, out -> {
+			var w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+			format.header(w);
+			visitHistoryRepository.forEach(fetchSize.get(), v -> {
+				try {
+					format.write(w, v);
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			w.flush();
+		});
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.adamgent.petclinic.web;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.repo.VisitHistory;
+
+import io.jooby.MediaType;
+
+/**
+ * Row at a time encoders for exports so nothing but the current row is buffered.
+ */
+enum ExportFormat {
+
+	csv(MediaType.valueOf("text/csv; charset=utf-8")) {
+		@Override
+		void header(Writer w) throws IOException {
+			w.write("id,visit_date,description,pet_id,pet_name,owner_id,owner_first_name,owner_last_name\r\n");
+		}
+
+		@Override
+		void write(Writer w, VisitHistory v) throws IOException {
+			w.write(Long.toString(v.id()));
+			w.write(',');
+			field(w, v.visitDate() == null ? null : v.visitDate().toString());
+			w.write(',');
+			field(w, v.description());
+			w.write(',');
+			field(w, v.petId() == null ? null : v.petId().toString());
+			w.write(',');
+			field(w, v.petName());
+			w.write(',');
+			field(w, v.ownerId() == null ? null : v.ownerId().toString());
+			w.write(',');
+			field(w, v.ownerFirstName());
+			w.write(',');
+			field(w, v.ownerLastName());
+			w.write("\r\n");
+		}
+
+		// RFC 4180: quote when needed and double embedded quotes
+		private void field(Writer w, @Nullable String s) throws IOException {
+			if (s == null) {
+				return;
+			}
+			boolean quote = false;
+			for (int i = 0; i < s.length() && !quote; i++) {
+				char c = s.charAt(i);
+				quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+			}
+			if (!quote) {
+				w.write(s);
+				return;
+			}
+			w.write('"');
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if (c == '"') {
+					w.write('"');
+				}
+				w.write(c);
+			}
+			w.write('"');
+		}
+	},
+
+	ndjson(MediaType.valueOf("application/x-ndjson; charset=utf-8")) {
+		@Override
+		void header(Writer w) {
+		}
+
+		@Override
+		void write(Writer w, VisitHistory v) throws IOException {
+			w.write("{\"id\":");
+			w.write(Long.toString(v.id()));
+			w.write(",\"visitDate\":");
+			string(w, v.visitDate() == null ? null : v.visitDate().toString());
+			w.write(",\"description\":");
+			string(w, v.description());
+			w.write(",\"petId\":");
+			number(w, v.petId());
+			w.write(",\"petName\":");
+			string(w, v.petName());
+			w.write(",\"ownerId\":");
+			number(w, v.ownerId());
+			w.write(",\"ownerFirstName\":");
+			string(w, v.ownerFirstName());
+			w.write(",\"ownerLastName\":");
+			string(w, v.ownerLastName());
+			w.write("}\n");
+		}
+
+		private void number(Writer w, @Nullable Long n) throws IOException {
+			w.write(n == null ? "null" : n.toString());
+		}
+
+		private void string(Writer w, @Nullable String s) throws IOException {
+			if (s == null) {
+				w.write("null");
+				return;
+			}
+			w.write('"');
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				switch (c) {
+					case '"' -> w.write("\\\"");
+					case '\\' -> w.write("\\\\");
+					case '\n' -> w.write("\\n");
+					case '\r' -> w.write("\\r");
+					case '\t' -> w.write("\\t");
+					default -> {
+						if (c < 0x20) {
+							w.write(String.format("\\u%04x", (int) c));
+						}
+						else {
+							w.write(c);
+						}
+					}
+				}
+			}
+			w.write('"');
+		}
+	};
+
+	final MediaType mediaType;
+
+	ExportFormat(MediaType mediaType) {
+		this.mediaType = mediaType;
+	}
+
+	abstract void header(Writer w) throws IOException;
+
+	abstract void write(Writer w, VisitHistory v) throws IOException;
+
+}
@@ -0,0 +1,13 @@
+package com.adamgent.petclinic.web;
+
+import io.jstach.jstache.JStache;
+
+@JStache(path = "owners/findOwners")
+public record FindOwnersHtml(String lastName) implements Page {
+
+	@Override
+	public MenuItem menuItem() {
+		return MenuItem.find_owners;
+	}
+
+}
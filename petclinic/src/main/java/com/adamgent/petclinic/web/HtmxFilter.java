@@ -0,0 +1,67 @@
+package com.adamgent.petclinic.web;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import io.jooby.Context;
+import io.jooby.Route;
+import jakarta.inject.Singleton;
+
+/**
+ * htmx requests (<code>HX-Request: true</code>) get only the
+ * {@link Page#fragment(String)} for the <code>HX-Target</code> element instead of the
+ * whole layout. Boosted links and history restores (a history cache miss after
+ * <code>hx-push-url</code>) replace the whole document so they still get the full page.
+ * Since the same URL now has two representations every page response varies on those
+ * headers and the caches ({@link DataVersionFilter}, {@link PageCacheFilter}) key on
+ * {@link #variant(Context)}.
+ */
+@Singleton
+public class HtmxFilter implements Route.Filter {
+
+	static final String VARY = "HX-Request, HX-Target, HX-Boosted, HX-History-Restore-Request";
+
+	@Override
+	public Route.Handler apply(Route.Handler next) {
+		return ctx -> {
+			ctx.setResponseHeader("Vary", VARY);
+			return next.apply(ctx);
+		};
+	}
+
+	/**
+	 * @return true if only a fragment of the page should be rendered.
+	 */
+	public static boolean isFragmentRequest(Context ctx) {
+		return is(ctx, "HX-Request") && !is(ctx, "HX-Boosted") && !is(ctx, "HX-History-Restore-Request");
+	}
+
+	private static boolean is(Context ctx, String header) {
+		return "true".equals(ctx.header(header).valueOrNull());
+	}
+
+	/**
+	 * @return empty for a full page otherwise <code>hx</code> plus the target if any.
+	 */
+	public static String variant(Context ctx) {
+		if (!isFragmentRequest(ctx)) {
+			return "";
+		}
+		String target = ctx.header("HX-Target").valueOrNull();
+		return target == null ? "hx" : "hx#" + target;
+	}
+
+	/**
+	 * Model selector for JStachioStreamModule.
+	 */
+	public static Object select(Context ctx, Object model) {
+		if (model instanceof Page page && isFragmentRequest(ctx)) {
+			@Nullable
+			Object fragment = page.fragment(ctx.header("HX-Target").valueOrNull());
+			if (fragment != null) {
+				return fragment;
+			}
+		}
+		return model;
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.adamgent.petclinic.web;
+
+import java.sql.SQLException;
+
+import com.adamgent.petclinic.config.sql.CsvImport;
+import com.adamgent.petclinic.repo.OwnerImporter;
+
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.exception.BadRequestException;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Admin bulk import. Takes a multipart POST with <code>owners</code> and
+ * <code>pets</code> CSV files (see {@link CsvImport}). Jooby spools uploads larger than
+ * its buffer to disk and COPY streams from there so memory stays flat. Only mounted when
+ * <code>import.endpoint</code> is true.
+ * <p>
+ * The whole request is still capped by Jooby's <code>server.maxRequestSize</code> (10mb
+ * unless set, e.g. <code>-Dserver.maxRequestSize=200mb</code>) and larger bodies are
+ * rejected with 413 before this handler runs. The limit is server wide, Jooby has no per
+ * route setting, so bigger files go through the IMPORT command instead.
+ */
+@Singleton
+public class ImportHandler implements Route.Handler {
+
+	private final OwnerImporter ownerImporter;
+
+	@Inject
+	public ImportHandler(OwnerImporter ownerImporter) {
+		super();
+		this.ownerImporter = ownerImporter;
+	}
+
+	@Override
+	public Object apply(Context ctx) throws Exception {
+		try (var owners = ctx.file("owners");
+				var pets = ctx.file("pets");
+				var o = owners.stream();
+				var p = pets.stream()) {
+			var result = ownerImporter.run(o, p);
+			return result.owners() + " owners, " + result.pets() + " pets imported\n";
+		}
+		catch (SQLException e) {
+			// bad data rather than a database problem
+			String state = e.getSQLState();
+			if (state != null && (state.startsWith("22") || state.startsWith("23"))) {
+				throw new BadRequestException(e.getMessage());
+			}
+			throw e;
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.adamgent.petclinic.web;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+import io.jstach.jstache.JStache;
+import io.jstach.jstache.JStacheLambda;
+
+/**
+ * The navbar only varies by the active menu item so it is rendered once per item and
+ * shared by every page.
+ */
+@JStache(path = "fragments/navbar")
+public record NavbarHtml(MenuItem menuItem) {
+
+	public Collection<MenuItem> menuItems() {
+		return EnumSet.allOf(MenuItem.class);
+	}
+
+	@JStacheLambda(template = "{{#.}}{{>@section}}{{/.}}")
+	public boolean active(MenuItem item) {
+		return item == menuItem;
+	}
+
+	public static EncodedHtml of(MenuItem item) {
+		var html = Cache.navbars.get(item);
+		if (html == null) {
+			throw new IllegalStateException("missing navbar for " + item);
+		}
+		return html;
+	}
+
+	private static final class Cache {
+
+		static final Map<MenuItem, EncodedHtml> navbars = render();
+
+		private static Map<MenuItem, EncodedHtml> render() {
+			Map<MenuItem, EncodedHtml> m = new EnumMap<>(MenuItem.class);
+			var renderer = NavbarHtmlRenderer.of();
+			for (var item : MenuItem.values()) {
+				m.put(item, EncodedHtml.of(renderer.execute(new NavbarHtml(item))));
+			}
+			return m;
+		}
+
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.adamgent.petclinic.web;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.Config.Property;
+import com.adamgent.petclinic.repo.Cursor;
+import com.adamgent.petclinic.repo.OwnerDetailsRepository;
+import com.adamgent.petclinic.repo.OwnerRepository;
+
+import io.jooby.Context;
+import io.jooby.annotation.GET;
+import io.jooby.annotation.Path;
+import io.jooby.annotation.PathParam;
+import io.jooby.annotation.QueryParam;
+import io.jooby.exception.NotFoundException;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+@Singleton
+@Path("/")
+public class OwnerController {
+
+	private final OwnerRepository ownerRepository;
+
+	private final OwnerDetailsRepository ownerDetailsRepository;
+
+	private final Property<Integer> pageSize;
+
+	@Inject
+	public OwnerController(OwnerRepository ownerRepository, OwnerDetailsRepository ownerDetailsRepository,
+			Config config) {
+		super();
+		this.ownerRepository = ownerRepository;
+		this.ownerDetailsRepository = ownerDetailsRepository;
+		this.pageSize = config.property("web.pageSize").map(Integer::parseInt);
+	}
+
+	@GET("/owners/find")
+	public FindOwnersHtml initFindForm() {
+		return new FindOwnersHtml("");
+	}
+
+	/*
+	 * A search that finds exactly one owner goes straight to that owner. Paging through
+	 * results (a cursor is present) never redirects.
+	 */
+	@GET("/owners")
+	@DataVersion({ "owners", "pets" })
+	public @Nullable OwnersHtml processFindForm(Context ctx, @QueryParam @Nullable String lastName,
+			@QueryParam @Nullable String page) {
+		String prefix = lastName == null ? "" : lastName.trim();
+		Cursor cursor = page == null || page.isBlank() ? null : Cursor.decode(page);
+		var owners = ownerRepository.findPageByLastName(prefix, cursor, pageSize.get());
+		if (cursor == null && owners.next() == null && owners.items().size() == 1
+				&& !HtmxFilter.isFragmentRequest(ctx)) {
+			ctx.sendRedirect("/owners/" + owners.items().get(0).id());
+			return null;
+		}
+		return OwnersHtml.of(prefix, owners);
+	}
+
+	/*
+	 * One statement for the owner, pets, types and visits.
+	 */
+	@GET("/owners/{ownerId}")
+	@DataVersion({ "owners", "pets", "types", "visits" })
+	public OwnerDetailsHtml showOwner(@PathParam long ownerId) {
+		return ownerDetailsRepository.findById(ownerId).map(OwnerDetailsHtml::new)
+				.orElseThrow(() -> new NotFoundException("/owners/" + ownerId));
+	}
+
+}
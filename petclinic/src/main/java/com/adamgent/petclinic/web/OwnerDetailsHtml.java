@@ -0,0 +1,15 @@
+package com.adamgent.petclinic.web;
+
+import com.adamgent.petclinic.repo.OwnerDetails;
+
+import io.jstach.jstache.JStache;
+
+@JStache(path = "owners/ownerDetails")
+public record OwnerDetailsHtml(OwnerDetails owner) implements Page {
+
+	@Override
+	public MenuItem menuItem() {
+		return MenuItem.find_owners;
+	}
+
+}
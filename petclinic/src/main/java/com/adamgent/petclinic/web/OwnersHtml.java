@@ -0,0 +1,51 @@
+package com.adamgent.petclinic.web;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.repo.Cursor;
+import com.adamgent.petclinic.repo.OwnerSummary;
+import com.adamgent.petclinic.repo.Slice;
+
+import io.jstach.jstache.JStache;
+
+@JStache(path = "owners/ownersList")
+public record OwnersHtml(String lastName, List<OwnerSummary> owners, @Nullable String next,
+		@Nullable String prev) implements Page, OwnersModel {
+
+	public static OwnersHtml of(String lastName, Slice<OwnerSummary> slice) {
+		return new OwnersHtml(lastName, slice.items(), encode(slice.next()), encode(slice.prev()));
+	}
+
+	private static @Nullable String encode(@Nullable Cursor cursor) {
+		return cursor == null ? null : cursor.encode();
+	}
+
+	@Override
+	public MenuItem menuItem() {
+		return MenuItem.find_owners;
+	}
+
+	/*
+	 * The search box and pager swap only #owners-page.
+	 */
+	@Override
+	public Object fragment(@Nullable String target) {
+		if ("owners-page".equals(target)) {
+			return new Rows(lastName, owners, next, prev);
+		}
+		return new Body(lastName, owners, next, prev);
+	}
+
+	@JStache(path = "owners/ownersList#template", name = "OwnersHtmlBodyRenderer")
+	public record Body(String lastName, List<OwnerSummary> owners, @Nullable String next,
+			@Nullable String prev) implements OwnersModel {
+	}
+
+	@JStache(path = "owners/ownersList#rows", name = "OwnersHtmlRowsRenderer")
+	public record Rows(String lastName, List<OwnerSummary> owners, @Nullable String next,
+			@Nullable String prev) implements OwnersModel {
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.adamgent.petclinic.web;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.adamgent.petclinic.repo.OwnerSummary;
+
+/*
+ * Shared by OwnersHtml and its fragments.
+ */
+interface OwnersModel {
+
+	String lastName();
+
+	List<OwnerSummary> owners();
+
+	default boolean found() {
+		return !owners().isEmpty();
+	}
+
+	default String query() {
+		return URLEncoder.encode(lastName(), StandardCharsets.UTF_8);
+	}
+
+}
@@ -1,21 +1,43 @@
 package com.adamgent.petclinic.web;
 
-import java.util.Collection;
-import java.util.EnumSet;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.config.jooby.AssetManifest;
 
 import io.jstach.jstache.JStacheLambda;
+import io.jstach.jstachio.context.ContextNode;
 
 public interface Page {
 
-	default Collection<MenuItem> menuItems() {
-		return EnumSet.allOf(MenuItem.class);
+	/*
+	 * Pre-rendered and pre-encoded so the layout does not walk the menu on every request.
+	 */
+	default EncodedHtml navbar() {
+		return NavbarHtml.of(menuItem());
 	}
 
-	@JStacheLambda(template = "{{#.}}{{>@section}}{{/.}}")
-	default boolean active(MenuItem item) {
-		return item == menuItem();
+	/*
+	 * {{#asset}}/static/x.css{{/asset}} -> /static/x.0123456789.css inside a
+	 * {{#@context.assets}} section which binds the AssetManifest given to the render
+	 * module.
+	 */
+	@JStacheLambda
+	@JStacheLambda.Raw
+	default String asset(@JStacheLambda.Raw String path, ContextNode assets) {
+		return ((AssetManifest) assets.object()).url(path.trim());
 	}
 
 	public MenuItem menuItem();
 
+	/**
+	 * The model to render for an htmx request instead of the whole page. Fragments are
+	 * usually sections of the page template e.g.
+	 * <code>@JStache(path = "vets/vetList#template")</code>.
+	 * @param target id of the element being swapped or null.
+	 * @return fragment model or null to render the whole page.
+	 */
+	default @Nullable Object fragment(@Nullable String target) {
+		return null;
+	}
+
 }
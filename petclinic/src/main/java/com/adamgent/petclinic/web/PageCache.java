@@ -0,0 +1,24 @@
+package com.adamgent.petclinic.web;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the rendered page of a GET route for <code>web.cache.&lt;name&gt;.ttl</code>
+ * milliseconds. Entries are dropped early when a table listed in the route's
+ * {@link DataVersion} changes and are never served once its data version has moved on.
+ *
+ * @see PageCacheFilter
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PageCache {
+
+	/**
+	 * @return name used for config lookup.
+	 */
+	String value();
+
+}
@@ -0,0 +1,205 @@
+package com.adamgent.petclinic.web;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.jooby.JStachioStreamModule;
+import com.adamgent.petclinic.repo.DataChanges;
+
+import io.jooby.Context;
+import io.jooby.MediaType;
+import io.jooby.Route;
+import io.jooby.annotation.QueryParam;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Response cache for {@link PageCache} routes keyed by request path, the query parameters
+ * the route reads (its <code>@QueryParam</code>s, so made up parameters can not add
+ * entries) and htmx variant. Stores the encoded bytes so a hit neither runs the route's
+ * queries nor renders. When over <code>web.cache.maxBytes</code> the oldest entries are
+ * evicted first.
+ * <p>
+ * An entry remembers the data version {@link DataVersionFilter} read before it was
+ * rendered and is only served while that is still the current version. So writes this
+ * process never hears about (another instance, psql, an import) are not served stale and
+ * the body always matches the ETag sent with it. That version lookup is one query per
+ * request, hit or miss, so this blocks and must not run on an event loop.
+ */
+@Singleton
+public class PageCacheFilter implements Route.Filter {
+
+	private final Config config;
+
+	private final long maxBytes;
+
+	private final Map<Method, Optional<Policy>> policies = new ConcurrentHashMap<>();
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final ConcurrentLinkedQueue<String> order = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong size = new AtomicLong();
+
+	/*
+	 * params are the query parameter names the route reads, sorted.
+	 */
+	record Policy(long ttlNanos, Set<String> tables, List<String> params) {
+	}
+
+	/*
+	 * version is null for routes without @DataVersion which are cached by ttl alone.
+	 */
+	record Entry(byte[] body, MediaType type, long expires, @Nullable Long version, Policy policy) {
+
+		boolean fresh(long now, @Nullable Long current) {
+			return expires - now > 0 && Objects.equals(version, current);
+		}
+
+	}
+
+	@Inject
+	public PageCacheFilter(Config config, DataChanges dataChanges) {
+		super();
+		this.config = config;
+		this.maxBytes = config.property("web.cache.maxBytes").map(Long::parseLong).get();
+		dataChanges.subscribe(this::invalidate);
+	}
+
+	@Override
+	public Route.Handler apply(Route.Handler next) {
+		return ctx -> {
+			Policy policy = policy(ctx);
+			if (policy == null) {
+				return next.apply(ctx);
+			}
+			String key = key(ctx.getRequestPath(), policy.params, ctx.queryMap(), HtmxFilter.variant(ctx));
+			Long version = ctx.getAttribute(DataVersionFilter.VERSION);
+			Entry entry = entries.get(key);
+			if (entry != null && entry.fresh(System.nanoTime(), version)) {
+				ctx.setResponseType(entry.type);
+				ctx.setResponseLength(entry.body.length);
+				return ctx.send(ByteBuffer.wrap(entry.body));
+			}
+			Consumer<byte[]> capture = body -> put(key,
+					new Entry(body, ctx.getResponseType(), System.nanoTime() + policy.ttlNanos, version, policy));
+			ctx.setAttribute(JStachioStreamModule.CAPTURE, capture);
+			return next.apply(ctx);
+		};
+	}
+
+	public void invalidate(String table) {
+		entries.entrySet().removeIf(e -> e.getValue().policy.tables.contains(table) && release(e.getValue()));
+		order.removeIf(k -> !entries.containsKey(k));
+	}
+
+	public void clear() {
+		entries.values().removeIf(this::release);
+		order.clear();
+	}
+
+	private void put(String key, Entry entry) {
+		if (entry.body.length > maxBytes) {
+			return;
+		}
+		Entry old = entries.put(key, entry);
+		if (old != null) {
+			release(old);
+		}
+		else {
+			order.add(key);
+		}
+		size.addAndGet(entry.body.length);
+		while (size.get() > maxBytes) {
+			String oldest = order.poll();
+			if (oldest == null) {
+				break;
+			}
+			Entry e = entries.remove(oldest);
+			if (e != null) {
+				release(e);
+			}
+		}
+	}
+
+	private boolean release(Entry e) {
+		size.addAndGet(-e.body.length);
+		return true;
+	}
+
+	private @Nullable Policy policy(Context ctx) {
+		if (!ctx.getMethod().equals("GET")) {
+			return null;
+		}
+		Method mvc = ctx.getRoute().getMvcMethod();
+		if (mvc == null) {
+			return null;
+		}
+		return policies.computeIfAbsent(mvc, this::policy).orElse(null);
+	}
+
+	private Optional<Policy> policy(Method m) {
+		PageCache pc = m.getAnnotation(PageCache.class);
+		if (pc == null) {
+			return Optional.empty();
+		}
+		long ttl = config.property("web.cache." + pc.value() + ".ttl").map(Long::parseLong).get();
+		if (ttl <= 0) {
+			return Optional.empty();
+		}
+		DataVersion dv = m.getAnnotation(DataVersion.class);
+		Set<String> tables = dv == null ? Set.of() : Set.of(dv.value());
+		return Optional.of(new Policy(ttl * 1_000_000, tables, params(m)));
+	}
+
+	static List<String> params(Method m) {
+		Set<String> names = new TreeSet<>();
+		for (Parameter p : m.getParameters()) {
+			QueryParam q = p.getAnnotation(QueryParam.class);
+			if (q != null) {
+				names.add(q.value().isEmpty() ? p.getName() : q.value());
+			}
+		}
+		return List.copyOf(names);
+	}
+
+	/*
+	 * Every part is URL encoded so the separators can not be forged by a value.
+	 */
+	static String key(String path, List<String> params, Map<String, String> query, String variant) {
+		StringBuilder sb = new StringBuilder(encode(path));
+		char sep = '?';
+		for (String name : params) {
+			String value = query.get(name);
+			if (value != null) {
+				sb.append(sep).append(encode(name)).append('=').append(encode(value));
+				sep = '&';
+			}
+		}
+		if (!variant.isEmpty()) {
+			sb.append(' ').append(encode(variant));
+		}
+		return sb.toString();
+	}
+
+	private static String encode(String s) {
+		return URLEncoder.encode(s, StandardCharsets.UTF_8);
+	}
+
+}
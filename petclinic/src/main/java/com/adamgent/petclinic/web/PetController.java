@@ -0,0 +1,88 @@
+package com.adamgent.petclinic.web;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.repo.DataChanges;
+import com.adamgent.petclinic.repo.OwnerDetailsRepository;
+import com.adamgent.petclinic.repo.Pet;
+import com.adamgent.petclinic.repo.PetRepository;
+import com.adamgent.petclinic.repo.ReferenceDataRegistry;
+
+import io.jooby.Context;
+import io.jooby.annotation.FormParam;
+import io.jooby.annotation.GET;
+import io.jooby.annotation.POST;
+import io.jooby.annotation.Path;
+import io.jooby.annotation.PathParam;
+import io.jooby.exception.BadRequestException;
+import io.jooby.exception.NotFoundException;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/*
+ * The type select box and the type check on submit read the in memory reference data
+ * instead of the types table.
+ */
+@Singleton
+@Path("/owners/{ownerId}/pets")
+public class PetController {
+
+	private final OwnerDetailsRepository ownerDetailsRepository;
+
+	private final PetRepository petRepository;
+
+	private final ReferenceDataRegistry referenceData;
+
+	private final DataChanges dataChanges;
+
+	@Inject
+	public PetController(OwnerDetailsRepository ownerDetailsRepository, PetRepository petRepository,
+			ReferenceDataRegistry referenceData, DataChanges dataChanges) {
+		super();
+		this.ownerDetailsRepository = ownerDetailsRepository;
+		this.petRepository = petRepository;
+		this.referenceData = referenceData;
+		this.dataChanges = dataChanges;
+	}
+
+	@GET("/new")
+	public PetFormHtml initCreationForm(@PathParam long ownerId) {
+		var owner = ownerDetailsRepository.findById(ownerId)
+				.orElseThrow(() -> new NotFoundException("/owners/" + ownerId));
+		return new PetFormHtml(owner, referenceData.types().names());
+	}
+
+	@POST("/new")
+	public Context processCreationForm(Context ctx, @PathParam long ownerId, @FormParam String name,
+			@FormParam @Nullable String birthDate, @FormParam String type) {
+		if (name.isBlank()) {
+			throw new BadRequestException("name is required");
+		}
+		int typeId = referenceData.typeId(type);
+		if (typeId < 0) {
+			throw new BadRequestException("unknown type: " + type);
+		}
+		if (!petRepository.ownerExists(ownerId)) {
+			throw new NotFoundException("/owners/" + ownerId);
+		}
+		petRepository.insert(Pet.of(name.trim(), parseDate(birthDate), typeId, ownerId));
+		dataChanges.changed("pets");
+		return ctx.sendRedirect("/owners/" + ownerId);
+	}
+
+	private static @Nullable LocalDate parseDate(@Nullable String date) {
+		if (date == null || date.isBlank()) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(date);
+		}
+		catch (DateTimeParseException e) {
+			throw new BadRequestException("invalid date: " + date);
+		}
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.adamgent.petclinic.web;
+
+import java.util.List;
+
+import com.adamgent.petclinic.repo.OwnerDetails;
+
+import io.jstach.jstache.JStache;
+
+/*
+ * New pet form. types are the names for the select box.
+ */
+@JStache(path = "pets/createOrUpdatePetForm")
+public record PetFormHtml(OwnerDetails owner, List<String> types) implements Page {
+
+	@Override
+	public MenuItem menuItem() {
+		return MenuItem.find_owners;
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.adamgent.petclinic.web;
+
+import java.time.Duration;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.sql.RoutingDataSource;
+import com.adamgent.petclinic.repo.LazyResult;
+
+import io.jooby.Context;
+import io.jooby.Cookie;
+import io.jooby.Route;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Lets GET and HEAD requests read from a replica (see {@link RoutingDataSource}), one per
+ * request so that the data version behind the ETag and the page come from the same. Any
+ * other request may write so it stays on the primary and sets a short lived cookie that
+ * keeps the same client on the primary for <code>database.replicas.stickySeconds</code>
+ * so that the page it is redirected to shows what it just wrote despite replication lag.
+ * Does nothing when no replicas are configured.
+ * <p>
+ * The scope has to cover rendering too: a template iterating a {@link LazyResult} (e.g.
+ * <code>/vets/all</code>) fetches its rows while it renders. Application uses the render
+ * filter after this one for that, see JStachioStreamModule#filter().
+ */
+@Singleton
+public class ReplicaFilter implements Route.Filter {
+
+	static final String COOKIE = "db-primary";
+
+	private final boolean enabled;
+
+	private final Duration sticky;
+
+	@Inject
+	public ReplicaFilter(Config config) {
+		super();
+		this.enabled = !config.property("database.replicas.names").orElse("").isBlank();
+		this.sticky = Duration.ofSeconds(config.property("database.replicas.stickySeconds").map(Long::parseLong).get());
+	}
+
+	@Override
+	public Route.Handler apply(Route.Handler next) {
+		if (!enabled) {
+			return next;
+		}
+		return ctx -> {
+			if (!isSafe(ctx)) {
+				ctx.setResponseCookie(new Cookie(COOKIE, "1").setMaxAge(sticky).setPath("/").setHttpOnly(true));
+				return next.apply(ctx);
+			}
+			if (ctx.cookie(COOKIE).isPresent()) {
+				return next.apply(ctx);
+			}
+			return RoutingDataSource.readOnly(() -> next.apply(ctx));
+		};
+	}
+
+	private static boolean isSafe(Context ctx) {
+		String method = ctx.getMethod();
+		return method.equals("GET") || method.equals("HEAD");
+	}
+
+}
@@ -1,5 +1,11 @@
 package com.adamgent.petclinic.web;
 
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.Config.Property;
+import com.adamgent.petclinic.repo.Cursor;
+import com.adamgent.petclinic.repo.LazyQueries;
 import com.adamgent.petclinic.repo.VetRepository;
 
 import io.jooby.annotation.GET;
@@ -14,20 +20,41 @@ public class VetController {
 
 	private final VetRepository vetRepository;
 
+	private final LazyQueries lazyQueries;
+
+	private final Property<Integer> pageSize;
+
 	@Inject
-	public VetController(VetRepository vetRepository) {
+	public VetController(VetRepository vetRepository, LazyQueries lazyQueries, Config config) {
 		super();
 		this.vetRepository = vetRepository;
+		this.lazyQueries = lazyQueries;
+		this.pageSize = config.property("web.pageSize").map(Integer::parseInt);
 	}
 
 	@GET("/vets")
-	public VetsHtml showVetList(@QueryParam Integer page) {
-		int _page = page == null ? 0 : page;
-		var vets = vetRepository.findAll();
-		var html = new VetsHtml(vets);
+	@DataVersion({ "vets", "specialties", "vet_specialties" })
+	@PageCache("vets")
+	public VetsHtml showVetList(@QueryParam @Nullable String page) {
+		/*
+		 * page is an opaque seek cursor. An invalid cursor is an IllegalArgumentException
+		 * which jooby turns into a 400.
+		 */
+		Cursor cursor = page == null || page.isBlank() ? null : Cursor.decode(page);
+		var vets = vetRepository.findPage(cursor, pageSize.get());
+		var html = VetsHtml.of(vets);
 
 		// var r = VetsHtmlRenderer.of().execute(html).contains("CHANGED");
 		return html;
 	}
 
+	/*
+	 * Not cached: the point is that the whole list is never in memory.
+	 */
+	@GET("/vets/all")
+	@DataVersion({ "vets", "specialties", "vet_specialties" })
+	public VetsHtml showAllVets() {
+		return VetsHtml.of(lazyQueries.vets());
+	}
+
 }
@@ -1,20 +1,67 @@
 package com.adamgent.petclinic.web;
 
-import java.util.List;
+import org.eclipse.jdt.annotation.Nullable;
 
+import com.adamgent.petclinic.repo.Cursor;
+import com.adamgent.petclinic.repo.LazyResult;
+import com.adamgent.petclinic.repo.Slice;
 import com.adamgent.petclinic.repo.Vet;
 
 import io.jstach.jstache.JStache;
 
 @JStache(path = "vets/vetList")
-public record VetsHtml(List<Vet> vets) implements Page {
+public record VetsHtml(Iterable<Vet> vets, @Nullable String next,
+		@Nullable String prev) implements Page, AutoCloseable {
+
+	public static VetsHtml of(Slice<Vet> slice) {
+		return new VetsHtml(slice.items(), encode(slice.next()), encode(slice.prev()));
+	}
+
+	/*
+	 * Every vet without paging. The rows are fetched as the template renders and the
+	 * cursor is closed by the result handler afterwards.
+	 */
+	public static VetsHtml of(LazyResult<Vet> vets) {
+		return new VetsHtml(vets, null, null);
+	}
+
+	@Override
+	public void close() {
+		if (vets instanceof LazyResult<?> lazy) {
+			lazy.close();
+		}
+	}
+
+	private static @Nullable String encode(@Nullable Cursor cursor) {
+		return cursor == null ? null : cursor.encode();
+	}
 
 	@Override
 	public MenuItem menuItem() {
 		return MenuItem.vets;
 	}
 
+	/*
+	 * Paging swaps only #vets-page (the table and pager) and anything else gets the page
+	 * body without the layout.
+	 */
+	@Override
+	public Object fragment(@Nullable String target) {
+		if ("vets-page".equals(target)) {
+			return new Rows(vets, next, prev);
+		}
+		return new Body(vets, next, prev);
+	}
+
+	@JStache(path = "vets/vetList#template", name = "VetsHtmlBodyRenderer")
+	public record Body(Iterable<Vet> vets, @Nullable String next, @Nullable String prev) {
+	}
+
+	@JStache(path = "vets/vetList#rows", name = "VetsHtmlRowsRenderer")
+	public record Rows(Iterable<Vet> vets, @Nullable String next, @Nullable String prev) {
+	}
+
 	void crap() {
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,95 @@
+package com.adamgent.petclinic.web;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.Config.Property;
+import com.adamgent.petclinic.repo.OwnerDetailsRepository;
+import com.adamgent.petclinic.repo.Visit;
+import com.adamgent.petclinic.repo.VisitRepository;
+import com.adamgent.petclinic.repo.VisitWriter;
+
+import io.jooby.Context;
+import io.jooby.StatusCode;
+import io.jooby.annotation.FormParam;
+import io.jooby.annotation.GET;
+import io.jooby.annotation.POST;
+import io.jooby.annotation.Path;
+import io.jooby.annotation.PathParam;
+import io.jooby.exception.BadRequestException;
+import io.jooby.exception.NotFoundException;
+import io.jooby.exception.StatusCodeException;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+@Singleton
+@Path("/owners/{ownerId}/pets/{petId}/visits")
+public class VisitController {
+
+	private final VisitRepository visitRepository;
+
+	private final OwnerDetailsRepository ownerDetailsRepository;
+
+	private final VisitWriter visitWriter;
+
+	private final Property<Duration> timeout;
+
+	@Inject
+	public VisitController(VisitRepository visitRepository, OwnerDetailsRepository ownerDetailsRepository,
+			VisitWriter visitWriter, Config config) {
+		super();
+		this.visitRepository = visitRepository;
+		this.ownerDetailsRepository = ownerDetailsRepository;
+		this.visitWriter = visitWriter;
+		this.timeout = config.property("database.batch.timeout").map(Long::parseLong).map(Duration::ofMillis);
+	}
+
+	@GET("/new")
+	public VisitFormHtml initNewVisitForm(@PathParam long ownerId, @PathParam long petId) {
+		var owner = ownerDetailsRepository.findById(ownerId)
+				.orElseThrow(() -> new NotFoundException("/owners/" + ownerId));
+		var pet = owner.pets().stream().filter(p -> p.id() == petId).findFirst()
+				.orElseThrow(() -> new NotFoundException("/owners/" + ownerId + "/pets/" + petId));
+		return new VisitFormHtml(owner, pet, LocalDate.now());
+	}
+
+	/*
+	 * The insert joins the current group commit batch. We wait for it so the redirect
+	 * shows the new visit, but only up to database.batch.timeout so a stuck writer turns
+	 * into 503s instead of piling up blocked request threads. The visit may still be
+	 * committed later.
+	 */
+	@POST("/new")
+	public Context processNewVisitForm(Context ctx, @PathParam long ownerId, @PathParam long petId,
+			@FormParam String date, @FormParam String description) {
+		if (!visitRepository.petBelongsTo(ownerId, petId)) {
+			throw new NotFoundException("/owners/" + ownerId + "/pets/" + petId);
+		}
+		try {
+			visitWriter.insert(Visit.of(petId, parseDate(date), description))
+					.orTimeout(timeout.get().toMillis(), TimeUnit.MILLISECONDS).join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof TimeoutException) {
+				throw new StatusCodeException(StatusCode.SERVICE_UNAVAILABLE, "visit not committed in time", e);
+			}
+			throw e;
+		}
+		return ctx.sendRedirect("/owners/" + ownerId);
+	}
+
+	private static LocalDate parseDate(String date) {
+		try {
+			return LocalDate.parse(date);
+		}
+		catch (DateTimeParseException e) {
+			throw new BadRequestException("invalid date: " + date);
+		}
+	}
+
+}
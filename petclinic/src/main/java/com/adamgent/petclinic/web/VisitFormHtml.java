@@ -0,0 +1,20 @@
+package com.adamgent.petclinic.web;
+
+import java.time.LocalDate;
+
+import com.adamgent.petclinic.repo.OwnerDetails;
+
+import io.jstach.jstache.JStache;
+
+/*
+ * New visit form with the pet's previous visits. date is the form's default.
+ */
+@JStache(path = "pets/createOrUpdateVisitForm")
+public record VisitFormHtml(OwnerDetails owner, OwnerDetails.Pet pet, LocalDate date) implements Page {
+
+	@Override
+	public MenuItem menuItem() {
+		return MenuItem.find_owners;
+	}
+
+}
@@ -1,5 +1,6 @@
-@io.avaje.inject.InjectModule(requiresPackages = { Repositories.class })
+@io.avaje.inject.InjectModule(requiresPackages = { Repositories.class }, requires = { Config.class })
 @org.eclipse.jdt.annotation.NonNullByDefault
 package com.adamgent.petclinic.web;
 
+import com.adamgent.petclinic.config.Config;
 import com.adamgent.petclinic.repo.Repositories;
@@ -1,7 +1,10 @@
 import io.jstach.jstache.JStacheConfig;
+import io.jstach.jstache.JStacheFormatterTypes;
 import io.jstach.jstache.JStachePath;
 
 @JStacheConfig(pathing = @JStachePath(prefix = "templates/", suffix=".mustache"))
+// ISO-8601 (yyyy-MM-dd) via toString
+@JStacheFormatterTypes(types = java.time.LocalDate.class)
 open module com.adamgent.petclinic {
 	requires static org.eclipse.jdt.annotation;
 
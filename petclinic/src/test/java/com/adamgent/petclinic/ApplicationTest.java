@@ -0,0 +1,148 @@
+package com.adamgent.petclinic;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.DriverManager;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.adamgent.petclinic.config.Config;
+import com.adamgent.petclinic.config.ConfigProvider;
+import com.adamgent.petclinic.config.sql.DataSourceReadiness;
+
+import io.jooby.Context;
+import io.jooby.DefaultContext;
+import io.jooby.MediaType;
+import io.jooby.Server;
+import io.jooby.ServerOptions;
+import io.jooby.Value;
+
+public class ApplicationTest {
+
+	/*
+	 * The replica's search path starts with a schema whose vet_list renames every vet so
+	 * the page shows where its rows came from. /vets/all only fetches rows while the
+	 * template renders so this fails if rendering is outside ReplicaFilter's scope.
+	 */
+	@Test
+	public void testVetsAllReadsFromReplica() throws Exception {
+		System.setProperty("jooby.useShutdownHook", "false");
+		Config base = ConfigProvider.get();
+		String url = base.property("database.url").get();
+		Config config = Config.builder().add(base.toMap()).add("database.replicas.names", "r1")
+				.add("database.replicas.r1.url", url + "?currentSchema=replica_check,public").build();
+		sql(base, "drop schema if exists replica_check cascade", "create schema replica_check",
+				"create view replica_check.vet_list as "
+						+ "select id, 'Replica'::text as first_name, last_name, specialties from public.vet_list");
+		Application app = Application.of(config);
+		try {
+			app.start(server());
+			var readiness = app.require(DataSourceReadiness.class);
+			long deadline = System.currentTimeMillis() + 10_000;
+			while (!readiness.getAsBoolean() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			String body = get(app, "/vets/all");
+			assertTrue(body.contains("<td>Replica Carter</td>"), body);
+			assertFalse(body.contains("James"), body);
+		}
+		finally {
+			app.stop();
+			sql(base, "drop schema if exists replica_check cascade");
+		}
+	}
+
+	private static void sql(Config config, String... statements) throws Exception {
+		try (var c = DriverManager.getConnection(config.property("database.url").get(),
+				config.property("database.username").get(), config.property("database.password").get());
+				var s = c.createStatement()) {
+			for (String statement : statements) {
+				s.execute(statement);
+			}
+		}
+	}
+
+	/*
+	 * Routes are only set up when the application starts on a server. None is needed to
+	 * run a request through the router.
+	 */
+	private static Server server() {
+		return (Server) Proxy.newProxyInstance(ApplicationTest.class.getClassLoader(), new Class<?>[] { Server.class },
+				(proxy, method, args) -> switch (method.getName()) {
+					case "getOptions" -> new ServerOptions();
+					case "getName" -> "test";
+					default -> method.isDefault() ? InvocationHandler.invokeDefault(proxy, method, args) : proxy;
+				});
+	}
+
+	/*
+	 * Just enough of a request context for a GET through the filters, route and render.
+	 * Dispatch runs inline.
+	 */
+	private static String get(Application app, String path) {
+		var body = new ByteArrayOutputStream();
+		Map<String, Object> attributes = new HashMap<>();
+		Map<String, Object> state = new HashMap<>();
+		Context ctx = (Context) Proxy.newProxyInstance(ApplicationTest.class.getClassLoader(),
+				new Class<?>[] { DefaultContext.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "getMethod":
+							return "GET";
+						case "getRequestPath":
+							return path;
+						case "getRouter":
+							return app;
+						case "header":
+						case "cookie":
+							return Value.missing((String) args[0]);
+						case "queryMap":
+							return Map.of();
+						case "getAttributes":
+							return attributes;
+						case "getAttribute":
+							return attributes.get(args[0]);
+						case "setAttribute":
+							attributes.put((String) args[0], args[1]);
+							return proxy;
+						case "setRoute":
+							state.put("route", args[0]);
+							return proxy;
+						case "getRoute":
+							return state.get("route");
+						case "dispatch":
+							((Runnable) args[args.length - 1]).run();
+							return proxy;
+						case "isResponseStarted":
+							return state.containsKey("started");
+						case "responseStream":
+							state.put("started", true);
+							return body;
+						case "send":
+							state.put("started", true);
+							if (args[0] instanceof byte[] b) {
+								body.writeBytes(b);
+							}
+							return proxy;
+						case "getResponseType":
+							return MediaType.html;
+					}
+					if (method.isDefault()) {
+						return InvocationHandler.invokeDefault(proxy, method, args);
+					}
+					if (method.getReturnType() == boolean.class) {
+						return false;
+					}
+					return method.getReturnType().isInstance(proxy) ? proxy : null;
+				});
+		app.match(ctx).execute(ctx);
+		return body.toString(StandardCharsets.UTF_8);
+	}
+
+}
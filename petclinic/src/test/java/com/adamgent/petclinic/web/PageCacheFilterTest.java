@@ -0,0 +1,91 @@
+package com.adamgent.petclinic.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.adamgent.petclinic.web.PageCacheFilter.Entry;
+import com.adamgent.petclinic.web.PageCacheFilter.Policy;
+
+import io.jooby.Context;
+import io.jooby.MediaType;
+import io.jooby.Value;
+
+public class PageCacheFilterTest {
+
+	@Test
+	public void testKey() {
+		var page = List.of("page");
+		assertNotEquals(PageCacheFilter.key("/owners/1", List.of(), Map.of(), ""),
+				PageCacheFilter.key("/owners/2", List.of(), Map.of(), ""));
+		assertEquals(PageCacheFilter.key("/owners", List.of("a", "b"), Map.of("a", "1", "b", "2"), ""),
+				PageCacheFilter.key("/owners", List.of("a", "b"), Map.of("b", "2", "a", "1"), ""));
+
+		String fragment = HtmxFilter.variant(context(Map.of("HX-Request", "true", "HX-Target", "vets-page")));
+		assertEquals("hx#vets-page", fragment);
+		assertNotEquals(PageCacheFilter.key("/vets", page, Map.of(), ""),
+				PageCacheFilter.key("/vets", page, Map.of(), fragment));
+		assertEquals("", HtmxFilter.variant(context(Map.of("HX-Request", "true", "HX-Boosted", "true"))));
+	}
+
+	@Test
+	public void testKeyIsUnambiguous() {
+		var ab = List.of("a", "b");
+		// ?a=1%26b%3D2 decodes to a single value that looks like two parameters
+		assertNotEquals(PageCacheFilter.key("/owners", ab, Map.of("a", "1&b=2"), ""),
+				PageCacheFilter.key("/owners", ab, Map.of("a", "1", "b", "2"), ""));
+		assertNotEquals(PageCacheFilter.key("/owners", ab, Map.of("a", "1 hx"), ""),
+				PageCacheFilter.key("/owners", ab, Map.of("a", "1"), "hx"));
+		assertNotEquals(PageCacheFilter.key("/vets?page=x", List.of("page"), Map.of(), ""),
+				PageCacheFilter.key("/vets", List.of("page"), Map.of("page", "x"), ""));
+	}
+
+	@Test
+	public void testKeyIgnoresParamsTheRouteDoesNotRead() throws Exception {
+		Method vets = VetController.class.getMethod("showVetList", String.class);
+		var params = PageCacheFilter.params(vets);
+		assertEquals(List.of("page"), params);
+		assertEquals(PageCacheFilter.key("/vets", params, Map.of("page", "n1"), ""),
+				PageCacheFilter.key("/vets", params, Map.of("page", "n1", "x", "random"), ""));
+		assertEquals(PageCacheFilter.key("/vets", params, Map.of(), ""),
+				PageCacheFilter.key("/vets", params, Map.of("x", "random"), ""));
+	}
+
+	/*
+	 * Only request headers are needed for the htmx variant.
+	 */
+	private static Context context(Map<String, String> headers) {
+		return (Context) Proxy.newProxyInstance(PageCacheFilterTest.class.getClassLoader(),
+				new Class<?>[] { Context.class }, (proxy, method, args) -> {
+					if (method.getName().equals("header") && args != null && args.length == 1
+							&& args[0] instanceof String name) {
+						String value = headers.get(name);
+						return value == null ? Value.missing(name) : Value.value((Context) proxy, name, value);
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	@Test
+	public void testEntryFresh() {
+		var policy = new Policy(1000, Set.of("vets"), List.of());
+		var entry = new Entry(new byte[0], MediaType.html, 100, 7L, policy);
+		assertTrue(entry.fresh(99, 7L));
+		// written somewhere this process did not hear about
+		assertFalse(entry.fresh(99, 8L));
+		assertFalse(entry.fresh(100, 7L));
+
+		var ttlOnly = new Entry(new byte[0], MediaType.html, 100, null, policy);
+		assertTrue(ttlOnly.fresh(99, null));
+	}
+
+}